@@ -0,0 +1,151 @@
+package com.goomar.benchmark;
+
+import com.google.api.client.util.DateTime;
+import com.google.api.services.calendar.model.TimePeriod;
+import com.goomar.availability.BusyIntervals;
+import com.goomar.availability.DayClock;
+import com.goomar.availability.DayTemplate;
+import com.goomar.availability.SlotEngine;
+import com.goomar.availability.WorkingHours;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.*;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the original per-slot/per-event loop of {@code CalendarService.getFreeSlots} with {@link SlotEngine} over
+ * {@link WorkingHours} compiled from the same hours (08:00 - 16:00, break 12:00 - 13:00) on synthetic calendars. Run with {@code mvn package && java -jar target/benchmarks.jar FreeSlots}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FreeSlotsBenchmark {
+
+    private static final ZoneId ZONE = ZoneId.of("Europe/Zagreb");
+    private static final LocalTime OPENING = LocalTime.of(8, 0);
+    private static final LocalTime CLOSING = LocalTime.of(16, 0);
+
+    public record Slot(String start, String end) {
+    }
+
+    @Param({"10", "100", "500"})
+    int eventsPerDay;
+
+    @Param({"1", "30"})
+    int days;
+
+    @Param({"false", "true"})
+    boolean longService;
+
+    private WorkingHours hours;
+    private LocalDate first;
+    private long[][] starts;
+    private long[][] ends;
+
+    @Setup
+    public void setup() {
+        List<WorkingHours.Window> windows = new ArrayList<>();
+        for (int weekday = 1; weekday <= 7; weekday++) {
+            windows.add(new WorkingHours.Window(weekday, 8 * 60, 12 * 60));
+            windows.add(new WorkingHours.Window(weekday, 13 * 60, 16 * 60));
+        }
+        hours = WorkingHours.compile(new WorkingHours.Rules(windows, Set.of(), 15, 30, 0));
+
+        Random random = new Random(42);
+        first = LocalDate.of(2025, 3, 3);
+        starts = new long[days][eventsPerDay];
+        ends = new long[days][eventsPerDay];
+        for (int d = 0; d < days; d++) {
+            long open = first.plusDays(d).atTime(OPENING).atZone(ZONE).toInstant().toEpochMilli();
+            for (int e = 0; e < eventsPerDay; e++) {
+                long start = open + random.nextInt(8 * 60) * 60_000L;
+                starts[d][e] = start;
+                ends[d][e] = start + (5 + random.nextInt(40)) * 60_000L;
+            }
+        }
+    }
+
+    @Benchmark
+    public List<List<Slot>> legacyLoop() {
+        List<List<Slot>> result = new ArrayList<>(days);
+        for (int d = 0; d < days; d++) {
+            List<TimePeriod> busyPeriods = new ArrayList<>(eventsPerDay + 1);
+            for (int e = 0; e < eventsPerDay; e++) {
+                busyPeriods.add(new TimePeriod().setStart(new DateTime(starts[d][e])).setEnd(new DateTime(ends[d][e])));
+            }
+            result.add(legacy(first.plusDays(d), busyPeriods));
+        }
+        return result;
+    }
+
+    @Benchmark
+    public List<List<Slot>> slotEngine() {
+        List<List<Slot>> result = new ArrayList<>(days);
+        for (int d = 0; d < days; d++) {
+            BusyIntervals busy = new BusyIntervals(eventsPerDay + 1);
+            for (int e = 0; e < eventsPerDay; e++) {
+                busy.addMillis(starts[d][e], ends[d][e]);
+            }
+            result.add(engine(first.plusDays(d), busy));
+        }
+        return result;
+    }
+
+    private List<Slot> engine(LocalDate date, BusyIntervals busy) {
+        DayTemplate day = hours.day(date, longService);
+        DayClock clock = DayClock.fixed(date.atStartOfDay(ZONE).toEpochSecond() / 60);
+
+        int[] slots = new int[day.size()];
+        int count = SlotEngine.freeSlots(day, clock, hours.margin(), busy, slots);
+
+        List<Slot> freeSlots = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            freeSlots.add(new Slot(SlotEngine.label(slots[i]), SlotEngine.label(slots[i] + day.slotLength())));
+        }
+        return freeSlots;
+    }
+
+    // the slot loop as it was in CalendarService before SlotEngine
+    private List<Slot> legacy(LocalDate date, List<TimePeriod> busyPeriods) {
+        LocalDateTime startOfDay = date.atTime(OPENING);
+        LocalDateTime endOfDay = date.atTime(CLOSING);
+
+        ZonedDateTime lunchStart = date.atTime(12, 0).atZone(ZONE);
+        ZonedDateTime lunchEnd = date.atTime(13, 0).atZone(ZONE);
+        busyPeriods.add(new TimePeriod().setStart(new DateTime(lunchStart.toInstant().toEpochMilli())).setEnd(new DateTime(lunchEnd.toInstant().toEpochMilli())));
+
+        busyPeriods.sort(Comparator.comparingLong(tp -> tp.getStart().getValue()));
+
+        List<Slot> freeSlots = new ArrayList<>();
+        ZonedDateTime cursor = startOfDay.atZone(ZONE);
+        Duration slotLength = Duration.ofMinutes(longService ? 30 : 15);
+        ZonedDateTime zonedEndOfDay = endOfDay.atZone(ZONE);
+        while (!cursor.plus(slotLength).isAfter(zonedEndOfDay)) {
+            boolean result = true;
+            ZonedDateTime slotEnd = cursor.plus(slotLength);
+
+            for (TimePeriod busy : busyPeriods) {
+                ZonedDateTime busyStart = Instant.ofEpochMilli(busy.getStart().getValue()).atZone(cursor.getZone());
+                ZonedDateTime busyEnd = Instant.ofEpochMilli(busy.getEnd().getValue()).atZone(cursor.getZone());
+
+                if (!slotEnd.isBefore(busyStart) && !cursor.isAfter(busyEnd)) {
+                    result = false;
+                    break;
+                }
+            }
+            if (result) {
+                freeSlots.add(new Slot(cursor.toLocalTime().toString(), cursor.plus(slotLength).toLocalTime().toString()));
+            }
+            cursor = cursor.plus(slotLength);
+        }
+        return freeSlots;
+    }
+}
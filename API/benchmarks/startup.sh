@@ -0,0 +1,44 @@
+#!/bin/bash
+# Startup time and RSS of the API in each launch mode, against the database configured in ../.env.
+#   mvn -Paot clean package -DskipTests && benchmarks/startup.sh            (JVM modes)
+#   mvn -Pnative clean native:compile -DskipTests && benchmarks/startup.sh  (adds the native image when target/goomar-api exists)
+# Startup is Spring's "process running for"; RSS is read from /proc once the context is up.
+set -euo pipefail
+cd "$(dirname "$0")/.."
+set -a; source .env; set +a
+export APP_URL=${APP_URL:-http://localhost}
+RUNS=${RUNS:-3}
+WORK=target/startup
+ARGS="--server.port=18080 --management.server.port=18081 --goomar.invalidation.enabled=false"
+
+rm -rf $WORK && mkdir -p $WORK
+java -Djarmode=tools -jar target/api-0.0.1-SNAPSHOT.jar extract --destination $WORK/app > /dev/null
+java -XX:ArchiveClassesAtExit=$WORK/app.jsa -Dspring.context.exit=onRefresh -jar $WORK/app/api-0.0.1-SNAPSHOT.jar $ARGS > $WORK/train.log 2>&1 || true
+java -XX:ArchiveClassesAtExit=$WORK/app-aot.jsa -Dspring.aot.enabled=true -Dspring.context.exit=onRefresh -jar $WORK/app/api-0.0.1-SNAPSHOT.jar $ARGS > $WORK/train-aot.log 2>&1 || true
+
+measure() {
+  local name=$1; shift
+  local times="" rss=0
+  for i in $(seq 1 "$RUNS"); do
+    "$@" $ARGS > $WORK/run.log 2>&1 &
+    local pid=$!
+    until grep -q "Started GoomarAppApplication\|APPLICATION FAILED" $WORK/run.log; do sleep 0.2; done
+    local started
+    started=$(grep -o "process running for [0-9.]*" $WORK/run.log | awk '{print $4}')
+    sleep 2
+    local kb
+    kb=$(awk '/VmRSS/ {print $2}' /proc/$pid/status)
+    kill $pid; wait $pid 2>/dev/null || true
+    times="$times $started"; rss=$((rss + kb))
+  done
+  printf "%-22s %8.2f s %8d MB\n" "$name" "$(echo "$times" | awk '{for (i = 1; i <= NF; i++) s += $i; print s / NF}')" $((rss / RUNS / 1024))
+}
+
+printf "%-22s %10s %11s\n" mode startup rss
+measure "jvm"                java -jar target/api-0.0.1-SNAPSHOT.jar
+measure "jvm + aot"          java -Dspring.aot.enabled=true -jar target/api-0.0.1-SNAPSHOT.jar
+measure "jvm + cds"          java -XX:SharedArchiveFile=$WORK/app.jsa -jar $WORK/app/api-0.0.1-SNAPSHOT.jar
+measure "jvm + aot + cds"    java -XX:SharedArchiveFile=$WORK/app-aot.jsa -Dspring.aot.enabled=true -jar $WORK/app/api-0.0.1-SNAPSHOT.jar
+if [ -x target/goomar-api ]; then
+  measure "native"           target/goomar-api
+fi
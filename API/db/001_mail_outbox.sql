@@ -0,0 +1,21 @@
+-- Mails waiting to be sent by MailDispatcher; rows are written in the same transaction as the ENTRIES change.
+CREATE TABLE goomar.mail_outbox
+(
+    id              bigserial PRIMARY KEY,
+    kind            varchar(16)  NOT NULL,
+    entry_id        uuid         NOT NULL,
+    email           varchar(80)  NOT NULL,
+    name            varchar(128) NOT NULL,
+    registration    varchar(80)  NOT NULL,
+    date_time       timestamp    NOT NULL,
+    status          varchar(16)  NOT NULL DEFAULT 'PENDING',
+    attempts        integer      NOT NULL DEFAULT 0,
+    next_attempt_at timestamptz  NOT NULL DEFAULT now(),
+    last_error      text,
+    created_at      timestamptz  NOT NULL DEFAULT now(),
+    sent_at         timestamptz
+);
+
+CREATE INDEX mail_outbox_pending_idx ON goomar.mail_outbox (next_attempt_at) WHERE status = 'PENDING';
+
+ALTER TABLE goomar.mail_outbox OWNER TO goomar;
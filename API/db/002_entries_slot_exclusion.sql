@@ -0,0 +1,12 @@
+-- A reservation owns its slot once the customer confirmed the e-mail or staff put it in the calendar.
+-- DATE_TIME is a local (Europe/Zagreb) timestamp, so the range is a tsrange over the same local time.
+ALTER TABLE goomar.entries
+    ADD COLUMN slot tsrange GENERATED ALWAYS AS (
+        CASE
+            WHEN email_ok OR event_id IS NOT NULL
+                THEN tsrange(date_time, date_time + CASE WHEN long THEN interval '30 minutes' ELSE interval '15 minutes' END)
+            END) STORED;
+
+-- Existing double bookings have to be resolved by hand before this succeeds.
+ALTER TABLE goomar.entries
+    ADD CONSTRAINT entries_slot_excl EXCLUDE USING gist (slot WITH &&);
@@ -0,0 +1,2 @@
+-- Keyset pagination of the reservation listing walks ENTRIES in (date_time, id) order.
+CREATE INDEX IF NOT EXISTS entries_date_time_id_idx ON goomar.entries (date_time, id);
@@ -0,0 +1,18 @@
+-- Calendar writes of the reservation flow, queued with the database change and sent to Google after commit; failures are retried in the background.
+CREATE TABLE goomar.calendar_outbox
+(
+    id              bigserial PRIMARY KEY,
+    op              varchar(16) NOT NULL,
+    entry_id        uuid,
+    event_id        varchar(80),
+    status          varchar(16) NOT NULL DEFAULT 'PENDING',
+    attempts        integer     NOT NULL DEFAULT 0,
+    next_attempt_at timestamptz NOT NULL DEFAULT now(),
+    last_error      text,
+    created_at      timestamptz NOT NULL DEFAULT now(),
+    done_at         timestamptz
+);
+
+CREATE INDEX calendar_outbox_pending_idx ON goomar.calendar_outbox (next_attempt_at, id) WHERE status = 'PENDING';
+
+ALTER TABLE goomar.calendar_outbox OWNER TO goomar;
@@ -0,0 +1,11 @@
+-- Google OAuth data stores (StoredCredential) shared by all replicas instead of a local /app/tokens volume.
+CREATE TABLE goomar.google_data_store
+(
+    store_id   varchar(64)  NOT NULL,
+    item_key   varchar(128) NOT NULL,
+    value      bytea        NOT NULL,
+    updated_at timestamptz  NOT NULL DEFAULT now(),
+    PRIMARY KEY (store_id, item_key)
+);
+
+ALTER TABLE goomar.google_data_store OWNER TO goomar;
@@ -0,0 +1,36 @@
+-- Cross-replica cache invalidation: committed changes are announced on channel goomar_invalidate as '<kind>:<key>'.
+CREATE OR REPLACE FUNCTION goomar.notify_entries_changed() RETURNS trigger AS
+$$
+BEGIN
+    IF TG_OP <> 'INSERT' THEN
+        PERFORM pg_notify('goomar_invalidate', 'entries:' || OLD.date_time::date);
+    END IF;
+    IF TG_OP <> 'DELETE' AND (TG_OP = 'INSERT' OR NEW.date_time::date IS DISTINCT FROM OLD.date_time::date) THEN
+        PERFORM pg_notify('goomar_invalidate', 'entries:' || NEW.date_time::date);
+    END IF;
+    RETURN NULL;
+END
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER entries_notify
+    AFTER INSERT OR UPDATE OR DELETE
+    ON goomar.entries
+    FOR EACH ROW
+EXECUTE FUNCTION goomar.notify_entries_changed();
+
+CREATE OR REPLACE FUNCTION goomar.notify_google_data_store_changed() RETURNS trigger AS
+$$
+BEGIN
+    PERFORM pg_notify('goomar_invalidate', 'google_data_store:' || COALESCE(NEW.store_id, OLD.store_id));
+    RETURN NULL;
+END
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER google_data_store_notify
+    AFTER INSERT OR UPDATE OR DELETE
+    ON goomar.google_data_store
+    FOR EACH ROW
+EXECUTE FUNCTION goomar.notify_google_data_store_changed();
+
+ALTER FUNCTION goomar.notify_entries_changed() OWNER TO goomar;
+ALTER FUNCTION goomar.notify_google_data_store_changed() OWNER TO goomar;
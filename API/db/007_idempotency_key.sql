@@ -0,0 +1,13 @@
+-- Responses of requests sent with an Idempotency-Key header, replayed to retries of the same key until expires_at.
+CREATE TABLE goomar.idempotency_key
+(
+    key          varchar(160) PRIMARY KEY,
+    request_hash varchar(64)  NOT NULL,
+    response     text,
+    created_at   timestamptz  NOT NULL DEFAULT now(),
+    expires_at   timestamptz  NOT NULL
+);
+
+CREATE INDEX idempotency_key_expires_idx ON goomar.idempotency_key (expires_at);
+
+ALTER TABLE goomar.idempotency_key OWNER TO goomar;
@@ -0,0 +1,67 @@
+-- Workshops served by one deployment. Each has its own Google calendar, time zone, mail sender and OAuth credential
+-- (credential_user is the item key of its StoredCredential in google_data_store). Everything that existed before
+-- belongs to the 'default' tenant, which is also served on the paths without a /t/{tenant} prefix.
+CREATE TABLE goomar.tenant
+(
+    id              varchar(32)  PRIMARY KEY CHECK (id ~ '^[a-z0-9][a-z0-9-]*$'),
+    name            varchar(128) NOT NULL,
+    calendar_id     varchar(255) NOT NULL,
+    zone            varchar(64)  NOT NULL DEFAULT 'Europe/Zagreb',
+    mail_from       varchar(128),
+    credential_user varchar(64)  NOT NULL UNIQUE,
+    enabled         boolean      NOT NULL DEFAULT true
+);
+
+INSERT INTO goomar.tenant (id, name, calendar_id, zone, mail_from, credential_user)
+VALUES ('default', 'Bosnić', 'c_dc10b042382df15e7d5ac4b909dec05336b9e7ca72d3d8dcbf3e0d37ee6b51a5@group.calendar.google.com',
+        'Europe/Zagreb', 'termin@bosnic.hr', 'user');
+
+ALTER TABLE goomar.entries ADD COLUMN tenant_id varchar(32) NOT NULL DEFAULT 'default' REFERENCES goomar.tenant;
+ALTER TABLE goomar.entries ALTER COLUMN tenant_id DROP DEFAULT;
+ALTER TABLE goomar.mail_outbox ADD COLUMN tenant_id varchar(32) NOT NULL DEFAULT 'default' REFERENCES goomar.tenant;
+ALTER TABLE goomar.mail_outbox ALTER COLUMN tenant_id DROP DEFAULT;
+ALTER TABLE goomar.calendar_outbox ADD COLUMN tenant_id varchar(32) NOT NULL DEFAULT 'default' REFERENCES goomar.tenant;
+ALTER TABLE goomar.calendar_outbox ALTER COLUMN tenant_id DROP DEFAULT;
+
+-- Idempotency keys are stored as '<tenant>:reservation:<Idempotency-Key>', up to 32 + 13 + 128 characters.
+ALTER TABLE goomar.idempotency_key ALTER COLUMN key TYPE varchar(200);
+
+-- Slots are exclusive per tenant only; btree_gist provides the equality operator class for tenant_id.
+CREATE EXTENSION IF NOT EXISTS btree_gist;
+ALTER TABLE goomar.entries DROP CONSTRAINT entries_slot_excl;
+ALTER TABLE goomar.entries ADD CONSTRAINT entries_slot_excl EXCLUDE USING gist (tenant_id WITH =, slot WITH &&);
+
+-- Every listing and keyset page is per tenant.
+DROP INDEX goomar.entries_date_time_id_idx;
+CREATE INDEX entries_tenant_date_time_id_idx ON goomar.entries (tenant_id, date_time, id);
+
+-- Invalidations carry the tenant: 'entries:<tenant>/<date>', and 'tenant:<id>' when a tenant is changed.
+CREATE OR REPLACE FUNCTION goomar.notify_entries_changed() RETURNS trigger AS
+$$
+BEGIN
+    IF TG_OP <> 'INSERT' THEN
+        PERFORM pg_notify('goomar_invalidate', 'entries:' || OLD.tenant_id || '/' || OLD.date_time::date);
+    END IF;
+    IF TG_OP <> 'DELETE' AND (TG_OP = 'INSERT' OR NEW.date_time::date IS DISTINCT FROM OLD.date_time::date) THEN
+        PERFORM pg_notify('goomar_invalidate', 'entries:' || NEW.tenant_id || '/' || NEW.date_time::date);
+    END IF;
+    RETURN NULL;
+END
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION goomar.notify_tenant_changed() RETURNS trigger AS
+$$
+BEGIN
+    PERFORM pg_notify('goomar_invalidate', 'tenant:' || COALESCE(NEW.id, OLD.id));
+    RETURN NULL;
+END
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER tenant_notify
+    AFTER INSERT OR UPDATE OR DELETE
+    ON goomar.tenant
+    FOR EACH ROW
+EXECUTE FUNCTION goomar.notify_tenant_changed();
+
+ALTER TABLE goomar.tenant OWNER TO goomar;
+ALTER FUNCTION goomar.notify_tenant_changed() OWNER TO goomar;
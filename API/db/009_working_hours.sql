@@ -0,0 +1,86 @@
+-- Working hours of each tenant, compiled by WorkingHoursRegistry into per-weekday slot templates. A weekday may have
+-- several windows; the gaps between them are breaks. Weekdays are ISO (1 = Monday); a weekday without windows is closed.
+CREATE TABLE goomar.working_hours
+(
+    tenant_id varchar(32) NOT NULL REFERENCES goomar.tenant ON DELETE CASCADE,
+    weekday   smallint    NOT NULL CHECK (weekday BETWEEN 1 AND 7),
+    opens     time        NOT NULL,
+    closes    time        NOT NULL,
+    PRIMARY KEY (tenant_id, weekday, opens),
+    CHECK (closes > opens)
+);
+
+-- Days closed as a whole, on top of the weekly hours.
+CREATE TABLE goomar.holiday
+(
+    tenant_id varchar(32) NOT NULL REFERENCES goomar.tenant ON DELETE CASCADE,
+    day       date        NOT NULL,
+    name      varchar(128),
+    PRIMARY KEY (tenant_id, day)
+);
+
+-- Slot lengths of the short and long service and the buffer kept free around every job. A tenant without a row
+-- gets the defaults.
+CREATE TABLE goomar.slot_rules
+(
+    tenant_id      varchar(32) PRIMARY KEY REFERENCES goomar.tenant ON DELETE CASCADE,
+    short_minutes  smallint    NOT NULL DEFAULT 15 CHECK (short_minutes BETWEEN 5 AND 480),
+    long_minutes   smallint    NOT NULL DEFAULT 30 CHECK (long_minutes BETWEEN 5 AND 480),
+    buffer_minutes smallint    NOT NULL DEFAULT 0 CHECK (buffer_minutes BETWEEN 0 AND 120)
+);
+
+-- The hours served so far: every day 08:00 - 16:00 with a break from 12:00 to 13:00.
+INSERT INTO goomar.working_hours (tenant_id, weekday, opens, closes)
+SELECT t.id, d, w.opens, w.closes
+FROM goomar.tenant t
+         CROSS JOIN generate_series(1, 7) d
+         CROSS JOIN (VALUES (time '08:00', time '12:00'), (time '13:00', time '16:00')) w(opens, closes);
+
+INSERT INTO goomar.slot_rules (tenant_id)
+SELECT id FROM goomar.tenant;
+
+-- A reservation keeps the length it was booked with, so changing the slot rules does not move existing claims.
+ALTER TABLE goomar.entries ADD COLUMN minutes smallint;
+UPDATE goomar.entries SET minutes = CASE WHEN long THEN 30 ELSE 15 END;
+ALTER TABLE goomar.entries ALTER COLUMN minutes SET NOT NULL;
+
+ALTER TABLE goomar.entries DROP COLUMN slot;
+ALTER TABLE goomar.entries
+    ADD COLUMN slot tsrange GENERATED ALWAYS AS (
+        CASE
+            WHEN email_ok OR event_id IS NOT NULL
+                THEN tsrange(date_time, date_time + make_interval(mins => minutes))
+            END) STORED;
+ALTER TABLE goomar.entries ADD CONSTRAINT entries_slot_excl EXCLUDE USING gist (tenant_id WITH =, slot WITH &&);
+
+-- Any change of the rules reloads them on every replica: 'hours:<tenant>'.
+CREATE OR REPLACE FUNCTION goomar.notify_hours_changed() RETURNS trigger AS
+$$
+BEGIN
+    PERFORM pg_notify('goomar_invalidate', 'hours:' || COALESCE(NEW.tenant_id, OLD.tenant_id));
+    RETURN NULL;
+END
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER working_hours_notify
+    AFTER INSERT OR UPDATE OR DELETE
+    ON goomar.working_hours
+    FOR EACH ROW
+EXECUTE FUNCTION goomar.notify_hours_changed();
+
+CREATE TRIGGER holiday_notify
+    AFTER INSERT OR UPDATE OR DELETE
+    ON goomar.holiday
+    FOR EACH ROW
+EXECUTE FUNCTION goomar.notify_hours_changed();
+
+CREATE TRIGGER slot_rules_notify
+    AFTER INSERT OR UPDATE OR DELETE
+    ON goomar.slot_rules
+    FOR EACH ROW
+EXECUTE FUNCTION goomar.notify_hours_changed();
+
+ALTER TABLE goomar.working_hours OWNER TO goomar;
+ALTER TABLE goomar.holiday OWNER TO goomar;
+ALTER TABLE goomar.slot_rules OWNER TO goomar;
+ALTER FUNCTION goomar.notify_hours_changed() OWNER TO goomar;
@@ -1,8 +1,15 @@
 #!/bin/bash
+# ./deploy.sh          JVM with Spring AOT and a CDS archive
+# ./deploy.sh native   GraalVM native image (needs a GraalVM JDK 21 as JAVA_HOME)
 git pull
 echo "BUILD API"
 cd ../API
-mvn clean install
-docker build -t goomar .
+if [ "$1" == "native" ]; then
+  mvn -Pnative clean native:compile -DskipTests
+  docker build -f Dockerfile.native -t goomar .
+else
+  mvn -Paot clean install
+  docker build -t goomar .
+fi
 docker image prune -f
-docker compose up -d --force-recreate goomar
\ No newline at end of file
+docker compose up -d --force-recreate goomar
@@ -2,8 +2,10 @@ package com.goomar;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class GoomarAppApplication {
     public static void main(String[] args) {
         SpringApplication.run(GoomarAppApplication.class, args);
@@ -0,0 +1,243 @@
+package com.goomar.advice;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Journal of unexpected exceptions. The request thread only fingerprints the stack trace and counts it; a background
+ * thread appends the first occurrence, and later a repeat summary at most every {@code repeatInterval}, to a
+ * size-rotated {@code errors.log}. The hand-off queue is bounded and drops under an error storm instead of blocking.
+ * Recent fingerprints are browsable through the {@code errors} actuator endpoint.
+ */
+@Slf4j
+@Component
+public class ErrorJournal implements SmartLifecycle {
+
+    private static final String APP_PACKAGE = "com.goomar";
+    private static final int MAX_CAUSES = 5;
+
+    public static final class Fingerprint {
+        final String id;
+        final String type;
+        final String message;
+        final String origin;
+        final Instant firstSeen;
+        final AtomicLong count = new AtomicLong();
+        final AtomicLong written = new AtomicLong();
+        volatile Instant lastSeen;
+        volatile Instant lastWritten;
+        volatile String stackTrace;
+        /** The entry with the stack trace is queued; guarded by the fingerprint. */
+        boolean traced;
+
+        Fingerprint(String id, Throwable e, Instant now) {
+            this.id = id;
+            this.type = e.getClass().getName();
+            this.message = e.getMessage();
+            this.origin = origin(e);
+            this.firstSeen = now;
+            this.lastSeen = now;
+        }
+    }
+
+    private record Entry(Fingerprint fingerprint, Throwable error, long repeats) {
+    }
+
+    private final Path directory;
+    private final long maxFileSize;
+    private final int maxFiles;
+    private final int maxFingerprints;
+    private final Duration repeatInterval;
+    private final BlockingQueue<Entry> queue;
+    private final Map<String, Fingerprint> fingerprints = new ConcurrentHashMap<>();
+    private final Counter written;
+    private final Counter dropped;
+    private volatile Thread writer;
+
+    public ErrorJournal(MeterRegistry registry,
+                        @Value("${goomar.errors.dir:/app/logs}") Path directory,
+                        @Value("${goomar.errors.maxFileSize:10485760}") long maxFileSize,
+                        @Value("${goomar.errors.maxFiles:5}") int maxFiles,
+                        @Value("${goomar.errors.maxFingerprints:500}") int maxFingerprints,
+                        @Value("${goomar.errors.repeatInterval:PT1M}") Duration repeatInterval,
+                        @Value("${goomar.errors.queueCapacity:1000}") int queueCapacity) {
+        this.directory = directory;
+        this.maxFileSize = maxFileSize;
+        this.maxFiles = maxFiles;
+        this.maxFingerprints = maxFingerprints;
+        this.repeatInterval = repeatInterval;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.written = registry.counter("errors.journal", "result", "written");
+        this.dropped = registry.counter("errors.journal", "result", "dropped");
+        registry.gauge("errors.journal.fingerprints", fingerprints, Map::size);
+    }
+
+    /** Records {@code e} and returns {@code "<first app frame> >> <fingerprint>"} for the log line. */
+    public String record(Throwable e) {
+        Instant now = Instant.now();
+        String id = fingerprint(e);
+        Fingerprint fingerprint = fingerprints.get(id);
+        if (fingerprint == null) {
+            if (fingerprints.size() >= maxFingerprints) evictOldest();
+            fingerprint = fingerprints.computeIfAbsent(id, k -> new Fingerprint(k, e, now));
+        }
+        long count = fingerprint.count.incrementAndGet();
+        fingerprint.lastSeen = now;
+
+        if (due(fingerprint, now)) offer(fingerprint, e, count, now);
+        return fingerprint.origin + " >> " + id;
+    }
+
+    private boolean due(Fingerprint fingerprint, Instant now) {
+        Instant lastWritten = fingerprint.lastWritten;
+        return lastWritten == null || lastWritten.plus(repeatInterval).isBefore(now);
+    }
+
+    /** Queues the next entry of the fingerprint; only a queued entry counts as written, a dropped one is retried later. */
+    private void offer(Fingerprint fingerprint, Throwable e, long count, Instant now) {
+        synchronized (fingerprint) {
+            if (!due(fingerprint, now)) return;
+            if (!queue.offer(new Entry(fingerprint, fingerprint.traced ? null : e, count - fingerprint.written.get()))) {
+                dropped.increment();
+                return;
+            }
+            fingerprint.traced = true;
+            fingerprint.lastWritten = now;
+            fingerprint.written.set(count);
+        }
+    }
+
+    public List<Fingerprint> recent(int limit) {
+        List<Fingerprint> recent = new ArrayList<>(fingerprints.values());
+        recent.sort(Comparator.comparing((Fingerprint f) -> f.lastSeen).reversed());
+        return recent.subList(0, Math.min(limit, recent.size()));
+    }
+
+    public Fingerprint get(String id) {
+        return fingerprints.get(id);
+    }
+
+    @Override
+    public void start() {
+        writer = Thread.ofPlatform().daemon().name("error-journal").start(this::write);
+    }
+
+    @Override
+    public void stop() {
+        Thread thread = writer;
+        writer = null;
+        if (thread != null) thread.interrupt();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return writer != null;
+    }
+
+    private void write() {
+        Path file = directory.resolve("errors.log");
+        List<Entry> batch = new ArrayList<>();
+        while (writer != null) {
+            try {
+                Entry first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                queue.drainTo(batch);
+                Files.createDirectories(directory);
+                if (Files.exists(file) && Files.size(file) >= maxFileSize) rotate(file);
+                try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                    for (Entry entry : batch) append(out, entry);
+                }
+                written.increment(batch.size());
+            } catch (InterruptedException e) {
+                return;
+            } catch (IOException e) {
+                log.warn("Error journal not written ({} entries lost): {}", batch.size(), e.getMessage());
+            }
+            batch.clear();
+        }
+    }
+
+    private void append(BufferedWriter out, Entry entry) throws IOException {
+        Fingerprint f = entry.fingerprint();
+        if (entry.error() == null) {
+            out.write("==== " + Instant.now() + " " + f.id + " repeated " + entry.repeats() + "x (" + f.count.get() + " total): " + f.type + ": " + f.message);
+            out.newLine();
+            return;
+        }
+        StringWriter trace = new StringWriter();
+        entry.error().printStackTrace(new PrintWriter(trace));
+        f.stackTrace = trace.toString();
+        out.write("==== " + f.firstSeen + " " + f.id + " at " + f.origin);
+        out.newLine();
+        out.write(f.stackTrace);
+        out.newLine();
+    }
+
+    private void rotate(Path file) throws IOException {
+        if (maxFiles <= 1) {
+            Files.delete(file);
+            return;
+        }
+        for (int i = maxFiles - 1; i >= 1; i--) {
+            Path from = i == 1 ? file : directory.resolve("errors." + (i - 1) + ".log");
+            if (Files.exists(from)) Files.move(from, directory.resolve("errors." + i + ".log"), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private void evictOldest() {
+        fingerprints.values().stream().min(Comparator.comparing((Fingerprint f) -> f.lastSeen))
+                .ifPresent(oldest -> fingerprints.remove(oldest.id, oldest));
+    }
+
+    /** Hash of the exception types and frames of the cause chain; messages are left out so ids and values do not split it. */
+    private static String fingerprint(Throwable e) {
+        long hash = 0xcbf29ce484222325L;
+        int depth = 0;
+        for (Throwable t = e; t != null && depth < MAX_CAUSES; t = t.getCause(), depth++) {
+            hash = mix(hash, t.getClass().getName().hashCode());
+            for (StackTraceElement frame : t.getStackTrace()) {
+                hash = mix(hash, frame.getClassName().hashCode());
+                hash = mix(hash, frame.getMethodName().hashCode());
+                hash = mix(hash, frame.getLineNumber());
+            }
+        }
+        return Long.toHexString(hash);
+    }
+
+    private static long mix(long hash, int value) {
+        return (hash ^ value) * 0x100000001b3L;
+    }
+
+    private static String origin(Throwable e) {
+        for (StackTraceElement element : e.getStackTrace()) {
+            if (element.getClassName().startsWith(APP_PACKAGE)) return element.toString();
+        }
+        return "?";
+    }
+}
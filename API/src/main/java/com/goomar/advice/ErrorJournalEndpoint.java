@@ -0,0 +1,47 @@
+package com.goomar.advice;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * {@code /actuator/errors}: most recently seen exception fingerprints of the {@link ErrorJournal}, and
+ * {@code /actuator/errors/{id}} with the stack trace of the first occurrence.
+ */
+@Component
+@Endpoint(id = "errors")
+@RequiredArgsConstructor
+public class ErrorJournalEndpoint {
+
+    private static final int LIMIT = 50;
+
+    public record Summary(String id, String type, String message, String origin, long count, Instant firstSeen, Instant lastSeen) {
+    }
+
+    public record Detail(Summary summary, String stackTrace) {
+    }
+
+    private final ErrorJournal journal;
+
+    @ReadOperation
+    public List<Summary> recent() {
+        return journal.recent(LIMIT).stream().map(ErrorJournalEndpoint::summary).toList();
+    }
+
+    @ReadOperation
+    @Nullable
+    public Detail fingerprint(@Selector String id) {
+        ErrorJournal.Fingerprint f = journal.get(id);
+        return f == null ? null : new Detail(summary(f), f.stackTrace);
+    }
+
+    private static Summary summary(ErrorJournal.Fingerprint f) {
+        return new Summary(f.id, f.type, f.message, f.origin, f.count.get(), f.firstSeen, f.lastSeen);
+    }
+}
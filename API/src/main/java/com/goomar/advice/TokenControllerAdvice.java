@@ -1,10 +1,13 @@
 package com.goomar.advice;
 
+import com.goomar.service.IIdempotencyService;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.logging.log4j.util.Strings;
 import org.postgresql.util.PSQLException;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.BadCredentialsException;
@@ -13,12 +16,6 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
-import java.io.FileWriter;
-import java.io.PrintWriter;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -26,6 +23,7 @@ import java.util.stream.Collectors;
 
 @Slf4j
 @RestControllerAdvice
+@RequiredArgsConstructor
 public class TokenControllerAdvice {
 
     public static final int APP_ERR_CODE_SQL_UNKNOWN = 1000;
@@ -35,7 +33,11 @@ public class TokenControllerAdvice {
     public static final int APP_ERR_CODE_MAIL_ERROR = 1004;
 
     public static final int APP_ERR_CODE_INVALID_CREDENTIALS = 2001;
-    private static final String APP_PACKAGE = "com.goomar";
+
+    private static final Pattern FIELD_MESSAGE = Pattern.compile("\\[Field.*?\\;");
+    private static final Pattern DUPLICATE_KEY = Pattern.compile("\\((.*)\\)=\\((.*)\\)");
+
+    private final ErrorJournal errorJournal;
 
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<Map<String, Object>> handleValidationException(MethodArgumentNotValidException ex) {
@@ -61,7 +63,7 @@ public class TokenControllerAdvice {
     @ExceptionHandler(value = BadCredentialsException.class)
     @ResponseStatus(HttpStatus.UNAUTHORIZED)
     public ErrorMessage handleUnathorized(BadCredentialsException ex) {
-        final Matcher matcher = Pattern.compile("\\[Field.*?\\;").matcher(ex.getMessage());
+        final Matcher matcher = FIELD_MESSAGE.matcher(ex.getMessage());
         String parsedMessage = "";
         if (matcher.find()) {
             parsedMessage = matcher.group(0);
@@ -69,6 +71,18 @@ public class TokenControllerAdvice {
         return new ErrorMessage(HttpStatus.UNAUTHORIZED.value(), new Date(), parsedMessage, ex.getMessage());
     }
 
+    @ExceptionHandler(IIdempotencyService.KeyReusedException.class)
+    @ResponseStatus(HttpStatus.UNPROCESSABLE_ENTITY)
+    public ErrorMessage idempotencyKeyReused(IIdempotencyService.KeyReusedException ex) {
+        return new ErrorMessage(HttpStatus.UNPROCESSABLE_ENTITY.value(), new Date(), ex.getMessage(), "IdempotencyKeyReused");
+    }
+
+    @ExceptionHandler(IIdempotencyService.KeyInProgressException.class)
+    public ResponseEntity<ErrorMessage> idempotencyKeyInProgress(IIdempotencyService.KeyInProgressException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).header(HttpHeaders.RETRY_AFTER, "1")
+                .body(new ErrorMessage(HttpStatus.CONFLICT.value(), new Date(), ex.getMessage(), "IdempotencyKeyInProgress"));
+    }
+
     @ExceptionHandler(RuntimeException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ErrorMessage runtimeException(RuntimeException e) {
@@ -77,7 +91,7 @@ public class TokenControllerAdvice {
             int appErrCode = APP_ERR_CODE_SQL_UNKNOWN;
             if (e instanceof DuplicateKeyException) {
                 appErrCode = APP_ERR_CODE_SQL_DUPLICATE;
-                final Matcher matcher = Pattern.compile("\\((.*)\\)=\\((.*)\\)").matcher(e.getMessage());
+                final Matcher matcher = DUPLICATE_KEY.matcher(e.getMessage());
                 if (matcher.find() && matcher.groupCount() == 2) {
                     parsedMessage = matcher.group(1) + " = \"" + matcher.group(2) + "\"";
                 }
@@ -88,36 +102,8 @@ public class TokenControllerAdvice {
             }
             return new ErrorMessage(appErrCode, new Date(), "message", e.getMessage());
         } else {
-            log.error("Exception: " + saveExceptionToFile(e));
+            log.error("Exception: {}", errorJournal.record(e));
             return new ErrorMessage(HttpStatus.INTERNAL_SERVER_ERROR.value(), new Date(), e.getMessage(), e.getClass().getSimpleName());
         }
     }
-
-    private String saveExceptionToFile(Exception ex) {
-        try {
-            Path logDir = Path.of("/app/logs");
-            Files.createDirectories(logDir);
-
-            Path logFile = logDir.resolve("exception-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm-ss")) + ".log");
-
-            try (FileWriter fw = new FileWriter(logFile.toFile(), true);
-                 PrintWriter pw = new PrintWriter(fw)) {
-                pw.println("==== Exception at " + LocalDateTime.now() + " ====");
-                ex.printStackTrace(pw);
-                pw.println();
-            }
-
-            for (StackTraceElement element : ex.getStackTrace()) {
-                if (element.getClassName().startsWith(APP_PACKAGE)) {
-                    return element + " >> "+ logFile.getFileName();
-                }
-            }
-            return "? >> "+ logFile.getFileName();
-        } catch (Exception e) {
-            log.error("Failed to write exception stacktrace: {}", e.getMessage());
-        }
-        return "? >> ?";
-
-    }
 }
-
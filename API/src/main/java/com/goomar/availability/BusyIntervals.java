@@ -0,0 +1,87 @@
+package com.goomar.availability;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of busy {@code [start, end)} intervals in epoch minutes.
+ * Each interval is packed into one {@code long} (start in the high, end in the low 32 bits),
+ * so sorting by start is a primitive {@link Arrays#sort(long[], int, int)}.
+ */
+public final class BusyIntervals {
+
+    private static final long LOW_BITS = 0xFFFF_FFFFL;
+
+    private long[] packed;
+    private int size;
+    private boolean merged = true;
+
+    public BusyIntervals() {
+        this(16);
+    }
+
+    public BusyIntervals(int capacity) {
+        this.packed = new long[Math.max(capacity, 4)];
+    }
+
+    /** Adds {@code [startMs, endMs)}, widened to whole minutes. */
+    public BusyIntervals addMillis(long startMs, long endMs) {
+        return add(Math.floorDiv(startMs, 60_000L), -Math.floorDiv(-endMs, 60_000L));
+    }
+
+    public BusyIntervals add(long startMinute, long endMinute) {
+        if (endMinute <= startMinute) return this;
+        if (size == packed.length) packed = Arrays.copyOf(packed, size * 2);
+        packed[size++] = startMinute << 32 | endMinute;
+        merged = size < 2;
+        return this;
+    }
+
+    /** Sorts by start and collapses overlapping or adjacent intervals in one sweep. */
+    public BusyIntervals merge() {
+        if (merged) return this;
+        Arrays.sort(packed, 0, size);
+        int out = 0;
+        long start = start(packed[0]);
+        long end = end(packed[0]);
+        for (int i = 1; i < size; i++) {
+            long s = start(packed[i]);
+            long e = end(packed[i]);
+            if (s <= end) {
+                if (e > end) end = e;
+            } else {
+                packed[out++] = start << 32 | end;
+                start = s;
+                end = e;
+            }
+        }
+        packed[out++] = start << 32 | end;
+        size = out;
+        merged = true;
+        return this;
+    }
+
+    public void clear() {
+        size = 0;
+        merged = true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long start(int i) {
+        return start(packed[i]);
+    }
+
+    public long end(int i) {
+        return end(packed[i]);
+    }
+
+    private static long start(long interval) {
+        return interval >>> 32;
+    }
+
+    private static long end(long interval) {
+        return interval & LOW_BITS;
+    }
+}
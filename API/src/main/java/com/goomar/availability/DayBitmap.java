@@ -0,0 +1,78 @@
+package com.goomar.availability;
+
+/**
+ * Minute-resolution occupancy of one opening window: bit {@code i} is set when minute {@code base + i} is busy.
+ */
+public final class DayBitmap {
+
+    private final long base;
+    private final int length;
+    private final long[] words;
+
+    public DayBitmap(long baseMinute, int lengthMinutes) {
+        this.base = baseMinute;
+        this.length = lengthMinutes;
+        this.words = new long[(lengthMinutes + 63) >>> 6];
+    }
+
+    public int length() {
+        return length;
+    }
+
+    /** Marks the epoch-minute range {@code [from, to)} busy, clipped to the window. */
+    public void markBusy(long from, long to) {
+        int a = (int) Math.max(0, from - base);
+        int b = (int) Math.min(length, to - base);
+        if (a < b) set(a, b);
+    }
+
+    /** Marks every interval busy, widened by {@code margin} minutes on both sides. Merged input keeps this a single pass. */
+    public void markBusy(BusyIntervals busy, int margin) {
+        busy.merge();
+        long end = base + length;
+        for (int i = 0; i < busy.size(); i++) {
+            long from = busy.start(i) - margin;
+            if (from >= end) break;
+            markBusy(from, busy.end(i) + margin);
+        }
+    }
+
+    /** True when no minute of the offset range {@code [from, to)} is busy. */
+    public boolean isFree(int from, int to) {
+        int wa = from >>> 6;
+        int wb = (to - 1) >>> 6;
+        long first = -1L << (from & 63);
+        long last = -1L >>> (63 - ((to - 1) & 63));
+        if (wa == wb) return (words[wa] & first & last) == 0;
+        if ((words[wa] & first) != 0) return false;
+        for (int w = wa + 1; w < wb; w++) {
+            if (words[w] != 0) return false;
+        }
+        return (words[wb] & last) == 0;
+    }
+
+    /** Writes the offsets of free slots on a {@code slotLength} grid starting at the window start; returns their count. */
+    public int freeSlots(int slotLength, int[] out) {
+        int n = 0;
+        for (int from = 0; from + slotLength <= length; from += slotLength) {
+            if (isFree(from, from + slotLength)) out[n++] = from;
+        }
+        return n;
+    }
+
+    private void set(int from, int to) {
+        int wa = from >>> 6;
+        int wb = (to - 1) >>> 6;
+        long first = -1L << (from & 63);
+        long last = -1L >>> (63 - ((to - 1) & 63));
+        if (wa == wb) {
+            words[wa] |= first & last;
+            return;
+        }
+        words[wa] |= first;
+        for (int w = wa + 1; w < wb; w++) {
+            words[w] = -1L;
+        }
+        words[wb] |= last;
+    }
+}
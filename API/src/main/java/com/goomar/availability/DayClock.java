@@ -0,0 +1,17 @@
+package com.goomar.availability;
+
+/**
+ * Maps the minutes of one local day to epoch minutes. A day without a DST transition is a fixed offset; on a
+ * transition day local times skipped by the clock map to {@link #SKIPPED}.
+ */
+@FunctionalInterface
+public interface DayClock {
+
+    long SKIPPED = Long.MIN_VALUE;
+
+    long at(int minuteOfDay);
+
+    static DayClock fixed(long midnightEpochMinute) {
+        return minuteOfDay -> midnightEpochMinute + minuteOfDay;
+    }
+}
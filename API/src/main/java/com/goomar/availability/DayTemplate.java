@@ -0,0 +1,61 @@
+package com.goomar.availability;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The slot grid of one weekday for one slot length: the start (minute of the day) of every slot that lies inside the
+ * opening windows and clear of the breaks between them. Compiled once from the rules, so a request only tests these
+ * starts against its busy intervals. The grid is anchored at the first opening of the day.
+ */
+public final class DayTemplate {
+
+    public static final DayTemplate CLOSED = new DayTemplate(new int[0], 0);
+
+    private final int[] starts;
+    private final int slotLength;
+
+    private DayTemplate(int[] starts, int slotLength) {
+        this.starts = starts;
+        this.slotLength = slotLength;
+    }
+
+    /**
+     * {@code windows} are sorted, non-overlapping {@code [opens, closes)} minute pairs of the day. Breaks are widened by
+     * {@code margin} minutes on both sides, the same way busy periods are.
+     */
+    static DayTemplate compile(List<int[]> windows, int slotLength, int margin) {
+        if (windows.isEmpty()) return CLOSED;
+        int first = windows.get(0)[0];
+        int last = windows.get(windows.size() - 1)[1];
+        DayBitmap closed = new DayBitmap(first, last - first);
+        for (int i = 1; i < windows.size(); i++) {
+            closed.markBusy(windows.get(i - 1)[1] - margin, windows.get(i)[0] + margin);
+        }
+        int[] starts = new int[(last - first) / slotLength];
+        int count = closed.freeSlots(slotLength, starts);
+        for (int i = 0; i < count; i++) starts[i] += first;
+        return count == 0 ? CLOSED : new DayTemplate(Arrays.copyOf(starts, count), slotLength);
+    }
+
+    public boolean isClosed() {
+        return starts.length == 0;
+    }
+
+    public int size() {
+        return starts.length;
+    }
+
+    public int start(int i) {
+        return starts[i];
+    }
+
+    public int slotLength() {
+        return slotLength;
+    }
+
+    /** True when a slot of this template starts at {@code minuteOfDay}. */
+    public boolean offers(int minuteOfDay) {
+        return Arrays.binarySearch(starts, minuteOfDay) >= 0;
+    }
+}
@@ -0,0 +1,61 @@
+package com.goomar.availability;
+
+/**
+ * Free-slot computation over epoch minutes: merge the busy intervals, paint them into a {@link DayBitmap} and test the
+ * precompiled {@link DayTemplate} of the day against it. No time-zone or Google types, so it can be driven from anywhere;
+ * the caller supplies the {@link DayClock} of the day.
+ */
+public final class SlotEngine {
+
+    private static final String[] LABELS = new String[24 * 60];
+
+    static {
+        for (int m = 0; m < LABELS.length; m++) {
+            LABELS[m] = String.format("%02d:%02d", m / 60, m % 60);
+        }
+    }
+
+    private SlotEngine() {
+    }
+
+    /**
+     * Writes the starts (minutes of the day) of the template's slots that are clear of {@code busy} into {@code out},
+     * sized at least {@link DayTemplate#size()}, and returns their count. Busy intervals are painted once into a bitmap
+     * spanning the day's slots; {@code margin} widens each of them on both sides, e.g. to keep a buffer between jobs.
+     */
+    public static int freeSlots(DayTemplate day, DayClock clock, int margin, BusyIntervals busy, int[] out) {
+        int size = day.size();
+        if (size == 0) return 0;
+        long[] bounds = new long[2 * size];
+        long from = Long.MAX_VALUE;
+        long to = Long.MIN_VALUE;
+        for (int i = 0; i < size; i++) {
+            long start = clock.at(day.start(i));
+            long end = clock.at(day.start(i) + day.slotLength());
+            if (start == DayClock.SKIPPED || end == DayClock.SKIPPED) {
+                start = DayClock.SKIPPED;
+            } else {
+                from = Math.min(from, start);
+                to = Math.max(to, end);
+            }
+            bounds[2 * i] = start;
+            bounds[2 * i + 1] = end;
+        }
+        if (from >= to) return 0;
+
+        DayBitmap bitmap = new DayBitmap(from, (int) (to - from));
+        bitmap.markBusy(busy, margin);
+        int n = 0;
+        for (int i = 0; i < size; i++) {
+            long start = bounds[2 * i];
+            if (start == DayClock.SKIPPED) continue;
+            if (bitmap.isFree((int) (start - from), (int) (bounds[2 * i + 1] - from))) out[n++] = day.start(i);
+        }
+        return n;
+    }
+
+    /** {@code HH:mm} label of a minute of the day, the same text {@code LocalTime.toString()} gives for whole minutes. */
+    public static String label(int minuteOfDay) {
+        return LABELS[Math.floorMod(minuteOfDay, LABELS.length)];
+    }
+}
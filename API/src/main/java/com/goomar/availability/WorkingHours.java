@@ -0,0 +1,78 @@
+package com.goomar.availability;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Working hours and slot rules of one tenant, compiled into an immutable {@link DayTemplate} per weekday and service
+ * length. Holidays close the whole day. Busy periods, and the breaks between opening windows, block the slots that only
+ * touch them; the buffer between jobs widens busy periods further.
+ */
+public final class WorkingHours {
+
+    /** Busy periods also block the slots that only touch them, as the original per-slot comparison did. */
+    public static final int TOUCH_MARGIN = 1;
+
+    /** Opening window {@code [opens, closes)} in minutes of the day; {@code weekday} 1 is Monday. */
+    public record Window(int weekday, int opens, int closes) {
+    }
+
+    public record Rules(List<Window> windows, Set<LocalDate> holidays, int shortMinutes, int longMinutes, int bufferMinutes) {
+    }
+
+    public static final WorkingHours CLOSED = compile(new Rules(List.of(), Set.of(), 15, 30, 0));
+
+    private final Rules rules;
+    private final DayTemplate[] shortDays = new DayTemplate[7];
+    private final DayTemplate[] longDays = new DayTemplate[7];
+
+    private WorkingHours(Rules rules) {
+        this.rules = rules;
+    }
+
+    public static WorkingHours compile(Rules rules) {
+        WorkingHours hours = new WorkingHours(rules);
+        for (int weekday = 1; weekday <= 7; weekday++) {
+            List<int[]> windows = merge(rules.windows(), weekday);
+            hours.shortDays[weekday - 1] = DayTemplate.compile(windows, rules.shortMinutes(), TOUCH_MARGIN);
+            hours.longDays[weekday - 1] = DayTemplate.compile(windows, rules.longMinutes(), TOUCH_MARGIN);
+        }
+        return hours;
+    }
+
+    public Rules rules() {
+        return rules;
+    }
+
+    public DayTemplate day(LocalDate date, boolean longService) {
+        if (rules.holidays().contains(date)) return DayTemplate.CLOSED;
+        return (longService ? longDays : shortDays)[date.getDayOfWeek().getValue() - 1];
+    }
+
+    public int minutes(boolean longService) {
+        return longService ? rules.longMinutes() : rules.shortMinutes();
+    }
+
+    public int buffer() {
+        return rules.bufferMinutes();
+    }
+
+    /** How far busy periods are widened on both sides before slots are tested against them. */
+    public int margin() {
+        return TOUCH_MARGIN + rules.bufferMinutes();
+    }
+
+    /** The windows of {@code weekday} sorted, with overlapping or adjacent ones joined. */
+    private static List<int[]> merge(List<Window> windows, int weekday) {
+        List<int[]> merged = new ArrayList<>();
+        windows.stream().filter(w -> w.weekday() == weekday).sorted(Comparator.comparingInt(Window::opens)).forEach(w -> {
+            int[] last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+            if (last != null && w.opens() <= last[1]) last[1] = Math.max(last[1], w.closes());
+            else merged.add(new int[]{w.opens(), w.closes()});
+        });
+        return merged;
+    }
+}
@@ -1,12 +1,17 @@
 package com.goomar.config;
 
+import com.google.api.client.auth.oauth2.StoredCredential;
 import com.google.api.client.googleapis.auth.oauth2.GoogleAuthorizationCodeFlow;
 import com.google.api.client.googleapis.auth.oauth2.GoogleClientSecrets;
-import com.google.api.client.googleapis.javanet.GoogleNetHttpTransport;
-import com.google.api.client.http.javanet.NetHttpTransport;
+import com.google.api.client.http.HttpTransport;
 import com.google.api.client.json.JsonFactory;
 import com.google.api.client.json.jackson2.JacksonFactory;
+import com.google.api.client.util.store.DataStore;
 import com.google.api.client.util.store.FileDataStoreFactory;
+import com.goomar.service.InvalidationBus;
+import lombok.extern.slf4j.Slf4j;
+import org.jooq.DSLContext;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.io.ClassPathResource;
@@ -14,21 +19,43 @@ import org.springframework.core.io.ClassPathResource;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.security.GeneralSecurityException;
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.List;
 
 @Configuration
+@Slf4j
 public class GoogleApiConfig {
 
     private static final JsonFactory JSON_FACTORY = JacksonFactory.getDefaultInstance();
-    private static final String TOKENS_DIRECTORY_PATH = "/app/tokens";
     private static final List<String> SCOPES = Arrays.asList("https://mail.google.com/", "https://www.googleapis.com/auth/calendar");
 
     @Bean
-    public GoogleAuthorizationCodeFlow googleAuthorizationCodeFlow() throws GeneralSecurityException, IOException {
-        final NetHttpTransport httpTransport = GoogleNetHttpTransport.newTrustedTransport();
+    public PostgresDataStoreFactory googleDataStoreFactory(DSLContext ctx, InvalidationBus bus,
+                                                           @Value("${goomar.google.store.cacheTtl:PT1M}") Duration cacheTtl,
+                                                           @Value("${goomar.google.store.importFrom:/app/tokens}") File tokensDirectory) throws IOException {
+        PostgresDataStoreFactory factory = new PostgresDataStoreFactory(ctx, cacheTtl);
+        bus.subscribe("google_data_store", factory::evict);
+        importFileStore(tokensDirectory, factory);
+        return factory;
+    }
+
+    @Bean
+    public GoogleAuthorizationCodeFlow googleAuthorizationCodeFlow(GoogleHttp googleHttp, PostgresDataStoreFactory dataStoreFactory) throws IOException {
+        final HttpTransport httpTransport = googleHttp.getTransport();
         GoogleClientSecrets clientSecrets = GoogleClientSecrets.load(JSON_FACTORY, new InputStreamReader(new ClassPathResource("credentials.json").getInputStream()));
-        return new GoogleAuthorizationCodeFlow.Builder(httpTransport, JSON_FACTORY, clientSecrets, SCOPES).setAccessType("offline").setDataStoreFactory(new FileDataStoreFactory(new File(TOKENS_DIRECTORY_PATH))).build();
+        return new GoogleAuthorizationCodeFlow.Builder(httpTransport, JSON_FACTORY, clientSecrets, SCOPES).setAccessType("offline").setDataStoreFactory(dataStoreFactory).build();
+    }
+
+    /** One-off move of the credential of a single-replica deployment (file store volume) into the database. */
+    private static void importFileStore(File directory, PostgresDataStoreFactory target) throws IOException {
+        File stored = new File(directory, StoredCredential.DEFAULT_DATA_STORE_ID);
+        if (!stored.isFile() || !target.isEmpty(StoredCredential.DEFAULT_DATA_STORE_ID)) return;
+        DataStore<StoredCredential> from = StoredCredential.getDefaultDataStore(new FileDataStoreFactory(directory));
+        DataStore<StoredCredential> to = StoredCredential.getDefaultDataStore(target);
+        for (String key : from.keySet()) {
+            to.set(key, from.get(key));
+        }
+        log.info("🔐 Imported {} Google credential(s) from {}", from.size(), directory);
     }
 }
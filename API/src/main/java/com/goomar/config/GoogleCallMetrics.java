@@ -0,0 +1,47 @@
+package com.goomar.config;
+
+import com.google.api.client.googleapis.json.GoogleJsonResponseException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Timers and counters for Google API calls: {@code google.api.calls} tagged by api, operation, outcome and HTTP status,
+ * and {@code google.api.unauthorized.retries} for calls repeated after a 401 forced a token refresh.
+ */
+@Component
+@RequiredArgsConstructor
+public class GoogleCallMetrics {
+
+    private final MeterRegistry registry;
+
+    public <T> T record(String api, String op, Callable<T> call) throws Exception {
+        Timer.Sample sample = Timer.start(registry);
+        Exception error = null;
+        try {
+            return call.call();
+        } catch (Exception e) {
+            error = e;
+            throw e;
+        } finally {
+            stop(sample, api, op, error);
+        }
+    }
+
+    public void stop(Timer.Sample sample, String api, String op, Exception error) {
+        int status = error instanceof GoogleJsonResponseException e ? e.getStatusCode() : 0;
+        sample.stop(Timer.builder("google.api.calls").description("Google API calls")
+                .tag("api", api).tag("op", op)
+                .tag("outcome", error == null ? "SUCCESS" : status >= 500 ? "SERVER_ERROR" : status >= 400 ? "CLIENT_ERROR" : "ERROR")
+                .tag("status", error == null ? "OK" : status > 0 ? Integer.toString(status) : "NONE")
+                .publishPercentileHistogram()
+                .register(registry));
+    }
+
+    public void unauthorizedRetry(String api, String op) {
+        registry.counter("google.api.unauthorized.retries", "api", api, "op", op).increment();
+    }
+}
@@ -0,0 +1,200 @@
+package com.goomar.config;
+
+import com.google.api.client.auth.oauth2.Credential;
+import com.google.api.client.googleapis.auth.oauth2.GoogleAuthorizationCodeFlow;
+import com.google.api.client.http.HttpRequestInitializer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.transaction.TransactionException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The Google access token shared by Calendar and Gmail. Request threads read it from an atomic reference;
+ * a scheduler refreshes it ahead of expiry, and forced refreshes (expired token, 401) are single-flight:
+ * one caller talks to the token server, everyone else waits on its future instead of a monitor. Across replicas the
+ * refresh runs under a database advisory lock and first re-reads the shared credential, so a token another replica
+ * just refreshed is picked up instead of refreshed again. Every tenant has its own credential, stored under its
+ * {@code credential_user}, and with it its own token, refresh and lock.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class GoogleCredentials {
+
+    private static final String BEARER = "Bearer ";
+    private static final Duration EXPIRY_SKEW = Duration.ofSeconds(10);
+    private static final long REFRESH_LOCK = 0x676f6f6d61720001L;
+
+    private record AccessToken(String value, long expiresAt) {
+        boolean expiresWithin(Duration duration) {
+            return System.currentTimeMillis() + duration.toMillis() >= expiresAt;
+        }
+    }
+
+    private final GoogleAuthorizationCodeFlow flow;
+    private final PostgresDataStoreFactory dataStores;
+
+    @Value("${goomar.google.token.refreshAhead:PT5M}")
+    private Duration refreshAhead;
+
+    private static final class Slot {
+        final String user;
+        final AtomicReference<AccessToken> token = new AtomicReference<>();
+        final AtomicReference<CompletableFuture<AccessToken>> inflight = new AtomicReference<>();
+        /** The token of the last request Google answered with 401. */
+        final AtomicReference<String> rejected = new AtomicReference<>();
+
+        Slot(String user) {
+            this.user = user;
+        }
+    }
+
+    private final Map<String, Slot> slots = new ConcurrentHashMap<>();
+
+    /**
+     * Request initializer that sets the current bearer token of {@code user} on every Google request and remembers the
+     * token of a request answered with 401 (batch parts included), for {@link #refreshAfterUnauthorized}.
+     */
+    public HttpRequestInitializer initializer(String user) {
+        Slot slot = slot(user);
+        return request -> {
+            request.setInterceptor(r -> r.getHeaders().setAuthorization(BEARER + accessToken(slot)));
+            request.setUnsuccessfulResponseHandler((r, response, supportsRetry) -> {
+                String sent = r.getHeaders().getAuthorization();
+                if (response.getStatusCode() == 401 && sent != null) slot.rejected.set(sent.substring(BEARER.length()));
+                return false;
+            });
+        };
+    }
+
+    public String accessToken(String user) {
+        return accessToken(slot(user));
+    }
+
+    private String accessToken(Slot slot) {
+        AccessToken current = slot.token.get();
+        if (current != null && !current.expiresWithin(EXPIRY_SKEW)) return current.value();
+        return refresh(slot, current).value();
+    }
+
+    /** Forces a refresh after a 401, unless the rejected token was already replaced by another caller. */
+    public void refreshAfterUnauthorized(String user) {
+        Slot slot = slot(user);
+        String rejected = slot.rejected.get();
+        AccessToken current = slot.token.get();
+        if (current != null && rejected != null && !current.value().equals(rejected)) return;
+        refresh(slot, current);
+    }
+
+    public boolean isAuthorized(String user) {
+        Slot slot = slot(user);
+        if (slot.token.get() != null) return true;
+        try {
+            accessToken(slot);
+            return true;
+        } catch (IllegalStateException | DataAccessException | TransactionException e) {
+            return false;
+        }
+    }
+
+    /** Drops the cached credential, e.g. after the user re-authorized through the OAuth callback. */
+    public void reset(String user) {
+        slot(user).token.set(null);
+    }
+
+    /** The only refresh ahead of expiry; a failed one is tried again on the next check, never from a request. */
+    @Scheduled(fixedDelayString = "${goomar.google.token.checkInterval:PT30S}")
+    public void refreshAheadQuietly() {
+        slots.values().forEach(this::refreshAheadQuietly);
+    }
+
+    private void refreshAheadQuietly(Slot slot) {
+        AccessToken current = slot.token.get();
+        if (current != null && !current.expiresWithin(refreshAhead)) return;
+        try {
+            refresh(slot, current);
+        } catch (IllegalStateException | DataAccessException | TransactionException e) {
+            log.debug("Google token of {} not refreshed: {}", slot.user, e.getMessage());
+        }
+    }
+
+    private Slot slot(String user) {
+        return slots.computeIfAbsent(user, Slot::new);
+    }
+
+    private AccessToken refresh(Slot slot, AccessToken stale) {
+        CompletableFuture<AccessToken> mine = new CompletableFuture<>();
+        CompletableFuture<AccessToken> running = slot.inflight.compareAndExchange(null, mine);
+        if (running != null) {
+            try {
+                return running.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException re ? re : e;
+            }
+        }
+        try {
+            AccessToken current = slot.token.get();
+            AccessToken fresh = current != stale && current != null && !current.expiresWithin(EXPIRY_SKEW) ? current : load(slot.user, stale);
+            slot.token.set(fresh);
+            mine.complete(fresh);
+            return fresh;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            slot.inflight.set(null);
+        }
+    }
+
+    private AccessToken load(String user, AccessToken stale) {
+        return dataStores.locked(REFRESH_LOCK + user.hashCode(), () -> {
+            Credential c = loadCredential(user);
+            if (c == null) throw new IllegalStateException("User must authorize first via OAuth flow!");
+            AccessToken stored = toToken(c);
+            if (stored != null && !stored.expiresWithin(refreshAhead) && (stale == null || !stored.value().equals(stale.value()))) {
+                log.info("✅ Google credential of {} loaded.", user);
+                return stored;
+            }
+            if (refresh(c)) return toToken(c);
+            throw new IllegalStateException("Google authorization expired. Please re-authorize via /google/auth");
+        });
+    }
+
+    private Credential loadCredential(String user) {
+        try {
+            return flow.loadCredential(user);
+        } catch (IOException e) {
+            log.warn("Failed to load Google credential: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private boolean refresh(Credential c) {
+        try {
+            if (c.refreshToken() && c.getAccessToken() != null) {
+                log.info("🔄 Google access token refreshed, expires in {}s", c.getExpiresInSeconds());
+                return true;
+            }
+        } catch (IOException e) {
+            log.warn("⚠️ Google token refresh failed: {}", e.getMessage());
+        }
+        return false;
+    }
+
+    private static AccessToken toToken(Credential c) {
+        if (c.getAccessToken() == null) return null;
+        Long expiresAt = c.getExpirationTimeMilliseconds();
+        return new AccessToken(c.getAccessToken(), expiresAt != null ? expiresAt : System.currentTimeMillis() + Duration.ofMinutes(55).toMillis());
+    }
+}
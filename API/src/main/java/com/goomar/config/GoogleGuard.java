@@ -0,0 +1,62 @@
+package com.goomar.config;
+
+import com.google.api.client.googleapis.json.GoogleJsonResponseException;
+import com.goomar.tenant.TenantContext;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.timelimiter.TimeLimiter;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Isolation for Google API calls: a semaphore bulkhead caps concurrent calls per API, so stuck requests cannot pile up
+ * on unbounded virtual threads, a circuit breaker fails fast while Google is down or slow, and a time limiter gives
+ * every call a deadline. The call itself runs on a virtual thread of the caller's tenant and is interrupted at the
+ * deadline, which closes its socket. Instances ({@code calendar}, {@code gmail}) are configured under
+ * {@code resilience4j.*} and show up in actuator.
+ */
+@Component
+@RequiredArgsConstructor
+public class GoogleGuard implements DisposableBean {
+
+    public static final String CALENDAR = "calendar";
+    public static final String GMAIL = "gmail";
+
+    private final CircuitBreakerRegistry circuitBreakers;
+    private final BulkheadRegistry bulkheads;
+    private final TimeLimiterRegistry timeLimiters;
+    private final ExecutorService calls = Executors.newVirtualThreadPerTaskExecutor();
+
+    public <T> T call(String api, Callable<T> call) throws Exception {
+        Callable<T> limited = TimeLimiter.decorateFutureSupplier(timeLimiters.timeLimiter(api), () -> calls.submit(TenantContext.wrap(call)));
+        return Bulkhead.decorateCallable(bulkheads.bulkhead(api), CircuitBreaker.decorateCallable(circuitBreakers.circuitBreaker(api), limited)).call();
+    }
+
+    @Override
+    public void destroy() {
+        calls.close();
+    }
+
+    /** Only outages count against the breaker; 4xx answers and missing authorization do not. A missed deadline does. */
+    public static boolean isOutage(Throwable e) {
+        if (e instanceof GoogleJsonResponseException g) return g.getStatusCode() >= 500 || g.getStatusCode() == 429;
+        return e instanceof IOException || e instanceof TimeoutException;
+    }
+
+    /** True when the call did not reach a working Google: breaker open, bulkhead full or an outage. */
+    public static boolean isUnavailable(Throwable e) {
+        return e instanceof CallNotPermittedException || e instanceof BulkheadFullException || isOutage(e);
+    }
+}
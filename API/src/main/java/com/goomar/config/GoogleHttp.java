@@ -0,0 +1,97 @@
+package com.goomar.config;
+
+import com.google.api.client.googleapis.GoogleUtils;
+import com.google.api.client.http.HttpRequestInitializer;
+import com.google.api.client.http.HttpTransport;
+import com.google.api.client.http.apache.v2.ApacheHttpTransport;
+import com.google.api.client.util.SslUtils;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.net.ssl.SSLContext;
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * The one HTTP transport shared by the OAuth flow, Calendar and Gmail: a pooled Apache client with keep-alive,
+ * gzip and the Google trust store, plus the request timeouts every client gets through {@link #initializer}.
+ */
+@Component
+@Slf4j
+public class GoogleHttp implements DisposableBean {
+
+    private final PoolingHttpClientConnectionManager pool;
+    private final CloseableHttpClient client;
+    @Getter
+    private final HttpTransport transport;
+    private final int connectTimeout;
+    private final int readTimeout;
+
+    public GoogleHttp(@Value("${goomar.google.http.maxConnections:50}") int maxConnections,
+                      @Value("${goomar.google.http.connectTimeout:PT5S}") Duration connectTimeout,
+                      @Value("${goomar.google.http.readTimeout:PT20S}") Duration readTimeout,
+                      @Value("${goomar.google.http.idleTimeout:PT60S}") Duration idleTimeout,
+                      MeterRegistry registry) throws GeneralSecurityException, IOException {
+        SSLContext sslContext = SslUtils.getTlsSslContext();
+        SslUtils.initSslContext(sslContext, GoogleUtils.getCertificateTrustStore(), SslUtils.getPkixTrustManagerFactory());
+
+        this.pool = new PoolingHttpClientConnectionManager(RegistryBuilder.<ConnectionSocketFactory>create()
+                .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                .register("https", new SSLConnectionSocketFactory(sslContext))
+                .build(), null, null, null, -1, TimeUnit.MILLISECONDS);
+        pool.setMaxTotal(maxConnections);
+        pool.setDefaultMaxPerRoute(maxConnections);
+        pool.setValidateAfterInactivity(2_000);
+
+        this.client = HttpClientBuilder.create()
+                .setConnectionManager(pool)
+                .useSystemProperties()
+                .disableRedirectHandling()
+                .disableAutomaticRetries()
+                .evictExpiredConnections()
+                .evictIdleConnections(idleTimeout.toMillis(), TimeUnit.MILLISECONDS)
+                .build();
+        this.transport = new ApacheHttpTransport(client);
+        this.connectTimeout = (int) connectTimeout.toMillis();
+        this.readTimeout = (int) readTimeout.toMillis();
+
+        gauge(registry, "google.http.pool.leased", p -> p.getTotalStats().getLeased());
+        gauge(registry, "google.http.pool.available", p -> p.getTotalStats().getAvailable());
+        gauge(registry, "google.http.pool.pending", p -> p.getTotalStats().getPending());
+        gauge(registry, "google.http.pool.max", p -> p.getTotalStats().getMax());
+        log.info("🌐 Google HTTP transport ready (maxConnections={}, connectTimeout={}, readTimeout={})", maxConnections, connectTimeout, readTimeout);
+    }
+
+    /** Wraps the credential so every request also gets the configured timeouts. */
+    public HttpRequestInitializer initializer(HttpRequestInitializer credential) {
+        return request -> {
+            credential.initialize(request);
+            request.setConnectTimeout(connectTimeout);
+            request.setReadTimeout(readTimeout);
+        };
+    }
+
+    private void gauge(MeterRegistry registry, String name, ToDoubleFunction<PoolingHttpClientConnectionManager> value) {
+        Gauge.builder(name, pool, value).description("Google API connection pool").register(registry);
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        client.close();
+    }
+}
@@ -0,0 +1,67 @@
+package com.goomar.config;
+
+import lombok.SneakyThrows;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.HexFormat;
+
+/**
+ * The {@code state} of the Google OAuth flow: the tenant it was started for, an expiry and a random nonce, signed
+ * with HMAC-SHA256 under {@code goomar.google.stateSecret}. Stateless, so the callback may land on any replica.
+ */
+@Component
+public class GoogleOAuthState {
+
+    private static final String HMAC = "HmacSHA256";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final SecretKeySpec key;
+    private final Duration ttl;
+    private final SecureRandom random = new SecureRandom();
+
+    public GoogleOAuthState(@Value("${goomar.google.stateSecret}") String secret,
+                            @Value("${goomar.google.stateTtl:PT15M}") Duration ttl) {
+        this.key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), HMAC);
+        this.ttl = ttl;
+    }
+
+    public String issue(String tenantId) {
+        byte[] nonce = new byte[16];
+        random.nextBytes(nonce);
+        String payload = tenantId + "|" + Instant.now().plus(ttl).getEpochSecond() + "|" + HexFormat.of().formatHex(nonce);
+        byte[] bytes = payload.getBytes(StandardCharsets.UTF_8);
+        return ENCODER.encodeToString(bytes) + "." + ENCODER.encodeToString(sign(bytes));
+    }
+
+    /** The tenant id of a state issued here and not yet expired, or {@code null}. */
+    public String verify(String state) {
+        int dot = state == null ? -1 : state.indexOf('.');
+        if (dot < 0) return null;
+        try {
+            byte[] payload = DECODER.decode(state.substring(0, dot));
+            if (!MessageDigest.isEqual(sign(payload), DECODER.decode(state.substring(dot + 1)))) return null;
+            String[] parts = new String(payload, StandardCharsets.UTF_8).split("\\|");
+            if (parts.length != 3 || Instant.now().getEpochSecond() > Long.parseLong(parts[1])) return null;
+            return parts[0];
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    @SneakyThrows
+    private byte[] sign(byte[] payload) {
+        Mac mac = Mac.getInstance(HMAC);
+        mac.init(key);
+        return mac.doFinal(payload);
+    }
+}
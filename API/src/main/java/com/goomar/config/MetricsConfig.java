@@ -0,0 +1,17 @@
+package com.goomar.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.jooq.ExecuteListenerProvider;
+import org.jooq.impl.DefaultExecuteListenerProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfig {
+
+    /** Picked up by the jOOQ auto-configuration and added to the listeners of the shared {@code DSLContext}. */
+    @Bean
+    public ExecuteListenerProvider jooqMetricsListenerProvider(MeterRegistry registry) {
+        return new DefaultExecuteListenerProvider(new JooqMetricsListener(registry));
+    }
+}
@@ -0,0 +1,70 @@
+package com.goomar.config;
+
+import com.google.api.client.auth.oauth2.StoredCredential;
+import com.google.api.client.auth.oauth2.TokenErrorResponse;
+import com.google.api.client.auth.oauth2.TokenResponse;
+import com.google.api.client.googleapis.auth.oauth2.GoogleClientSecrets;
+import com.google.api.client.googleapis.auth.oauth2.GoogleTokenResponse;
+import com.google.api.client.googleapis.json.GoogleJsonError;
+import com.google.api.client.googleapis.json.GoogleJsonErrorContainer;
+import com.google.api.client.http.HttpHeaders;
+import com.google.api.services.calendar.model.Event;
+import com.google.api.services.calendar.model.EventDateTime;
+import com.google.api.services.calendar.model.EventReminder;
+import com.google.api.services.calendar.model.Events;
+import com.google.api.services.gmail.model.Message;
+import org.jooq.Table;
+import org.jooq.generated.Goomar;
+import org.openapitools.model.ReservationRest;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+
+import java.util.List;
+
+/**
+ * Reachability metadata for the native image ({@code mvn -Pnative native:compile}) that neither Spring AOT nor the
+ * GraalVM metadata repository provide: Google API models bound through {@code @Key} reflection, jOOQ records and
+ * {@code fetchInto} targets, the Java-serialized OAuth credential and the Jakarta Mail provider files.
+ * Ignored on the JVM.
+ */
+@Configuration
+@ImportRuntimeHints(NativeHints.class)
+public class NativeHints implements RuntimeHintsRegistrar {
+
+    private static final MemberCategory[] BOUND = {MemberCategory.DECLARED_FIELDS, MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+            MemberCategory.INVOKE_PUBLIC_METHODS};
+
+    private static final List<Class<?>> GOOGLE_MODELS = List.of(
+            Event.class, Event.Creator.class, Event.Organizer.class, Event.Reminders.class, EventDateTime.class, EventReminder.class,
+            Events.class, Message.class, HttpHeaders.class, GoogleJsonError.class, GoogleJsonError.ErrorInfo.class,
+            GoogleJsonErrorContainer.class, GoogleClientSecrets.class, GoogleClientSecrets.Details.class,
+            TokenResponse.class, TokenErrorResponse.class, GoogleTokenResponse.class);
+
+    private static final List<String> MAIL_HANDLERS = List.of(
+            "com.sun.mail.handlers.text_plain", "com.sun.mail.handlers.text_html", "com.sun.mail.handlers.text_xml",
+            "com.sun.mail.handlers.multipart_mixed", "com.sun.mail.handlers.message_rfc822");
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        GOOGLE_MODELS.forEach(type -> hints.reflection().registerType(type, BOUND));
+
+        for (Table<?> table : Goomar.GOOMAR.getTables()) {
+            hints.reflection().registerType(table.getClass(), MemberCategory.INVOKE_DECLARED_CONSTRUCTORS, MemberCategory.DECLARED_FIELDS);
+            hints.reflection().registerType(table.getRecordType(), MemberCategory.INVOKE_DECLARED_CONSTRUCTORS, MemberCategory.INVOKE_PUBLIC_METHODS);
+        }
+        hints.reflection().registerType(ReservationRest.class, BOUND);
+
+        hints.serialization().registerType(StoredCredential.class);
+
+        MAIL_HANDLERS.forEach(handler -> hints.reflection().registerTypeIfPresent(classLoader, handler, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS));
+        hints.resources()
+                .registerPattern("META-INF/javamail.*")
+                .registerPattern("META-INF/mailcap*")
+                .registerPattern("credentials.json")
+                .registerPattern("templates/*.html")
+                .registerPattern("static/**");
+    }
+}
@@ -0,0 +1,145 @@
+package com.goomar.config;
+
+import com.google.api.client.util.IOUtils;
+import com.google.api.client.util.store.AbstractDataStore;
+import com.google.api.client.util.store.AbstractDataStoreFactory;
+import com.google.api.client.util.store.DataStore;
+import lombok.extern.slf4j.Slf4j;
+import org.jooq.DSLContext;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import static org.jooq.generated.tables.GoogleDataStore.GOOGLE_DATA_STORE;
+
+/**
+ * Google client data stores in {@code goomar.google_data_store}, so every replica shares one authorization.
+ * Reads go through a short-lived in-process cache; {@link #locked} serializes critical sections (the token refresh)
+ * across replicas with a transaction-scoped advisory lock and reads the database, not the cache, while holding it.
+ * Writes of other replicas evict the cache through the {@code google_data_store} trigger (db/006).
+ */
+@Slf4j
+public class PostgresDataStoreFactory extends AbstractDataStoreFactory {
+
+    private record Cached(byte[] value, long expiresAt) {
+    }
+
+    private final DSLContext ctx;
+    private final long cacheTtl;
+    private final Map<String, Map<String, Cached>> cache = new ConcurrentHashMap<>();
+    private final ThreadLocal<Boolean> bypassCache = ThreadLocal.withInitial(() -> false);
+
+    public PostgresDataStoreFactory(DSLContext ctx, Duration cacheTtl) {
+        this.ctx = ctx;
+        this.cacheTtl = cacheTtl.toMillis();
+    }
+
+    /** Runs {@code action} while holding the cluster-wide advisory lock {@code lockId}. */
+    public <T> T locked(long lockId, Supplier<T> action) {
+        return ctx.transactionResult(cfg -> {
+            cfg.dsl().fetch("select pg_advisory_xact_lock(?)", lockId);
+            bypassCache.set(true);
+            try {
+                return action.get();
+            } finally {
+                bypassCache.remove();
+            }
+        });
+    }
+
+    /** Drops the cached entries of {@code storeId}, or of every store for {@code null}; another replica changed them. */
+    public void evict(String storeId) {
+        if (storeId == null) {
+            cache.values().forEach(Map::clear);
+            return;
+        }
+        Map<String, Cached> entries = cache.get(storeId);
+        if (entries != null) entries.clear();
+    }
+
+    public boolean isEmpty(String storeId) {
+        return !ctx.fetchExists(GOOGLE_DATA_STORE, GOOGLE_DATA_STORE.STORE_ID.eq(storeId));
+    }
+
+    @Override
+    protected <V extends Serializable> DataStore<V> createDataStore(String id) {
+        return new PostgresDataStore<>(this, id);
+    }
+
+    private final class PostgresDataStore<V extends Serializable> extends AbstractDataStore<V> {
+
+        private final Map<String, Cached> entries;
+
+        PostgresDataStore(PostgresDataStoreFactory factory, String id) {
+            super(factory, id);
+            this.entries = cache.computeIfAbsent(id, k -> new ConcurrentHashMap<>());
+        }
+
+        @Override
+        public Set<String> keySet() {
+            return Set.copyOf(ctx.select(GOOGLE_DATA_STORE.ITEM_KEY).from(GOOGLE_DATA_STORE)
+                    .where(GOOGLE_DATA_STORE.STORE_ID.eq(getId())).fetch(GOOGLE_DATA_STORE.ITEM_KEY));
+        }
+
+        @Override
+        public Collection<V> values() throws IOException {
+            List<byte[]> values = ctx.select(GOOGLE_DATA_STORE.VALUE).from(GOOGLE_DATA_STORE)
+                    .where(GOOGLE_DATA_STORE.STORE_ID.eq(getId())).fetch(GOOGLE_DATA_STORE.VALUE);
+            List<V> result = new ArrayList<>(values.size());
+            for (byte[] value : values) result.add(IOUtils.deserialize(value));
+            return result;
+        }
+
+        @Override
+        public V get(String key) throws IOException {
+            if (key == null) return null;
+            long now = System.currentTimeMillis();
+            Cached cached = entries.get(key);
+            if (cached != null && cached.expiresAt() > now && !bypassCache.get()) {
+                return cached.value() == null ? null : IOUtils.deserialize(cached.value());
+            }
+            byte[] value = ctx.select(GOOGLE_DATA_STORE.VALUE).from(GOOGLE_DATA_STORE)
+                    .where(GOOGLE_DATA_STORE.STORE_ID.eq(getId())).and(GOOGLE_DATA_STORE.ITEM_KEY.eq(key))
+                    .fetchOne(GOOGLE_DATA_STORE.VALUE);
+            entries.put(key, new Cached(value, now + cacheTtl));
+            return value == null ? null : IOUtils.deserialize(value);
+        }
+
+        @Override
+        public DataStore<V> set(String key, V value) throws IOException {
+            byte[] bytes = IOUtils.serialize(value);
+            ctx.insertInto(GOOGLE_DATA_STORE, GOOGLE_DATA_STORE.STORE_ID, GOOGLE_DATA_STORE.ITEM_KEY, GOOGLE_DATA_STORE.VALUE)
+                    .values(getId(), key, bytes)
+                    .onConflict(GOOGLE_DATA_STORE.STORE_ID, GOOGLE_DATA_STORE.ITEM_KEY)
+                    .doUpdate().set(GOOGLE_DATA_STORE.VALUE, bytes).set(GOOGLE_DATA_STORE.UPDATED_AT, OffsetDateTime.now())
+                    .execute();
+            entries.put(key, new Cached(bytes, System.currentTimeMillis() + cacheTtl));
+            log.info("🔐 Google data store {} updated ({})", getId(), key);
+            return this;
+        }
+
+        @Override
+        public DataStore<V> clear() {
+            ctx.deleteFrom(GOOGLE_DATA_STORE).where(GOOGLE_DATA_STORE.STORE_ID.eq(getId())).execute();
+            entries.clear();
+            return this;
+        }
+
+        @Override
+        public DataStore<V> delete(String key) {
+            if (key == null) return this;
+            ctx.deleteFrom(GOOGLE_DATA_STORE).where(GOOGLE_DATA_STORE.STORE_ID.eq(getId())).and(GOOGLE_DATA_STORE.ITEM_KEY.eq(key)).execute();
+            entries.remove(key);
+            return this;
+        }
+    }
+}
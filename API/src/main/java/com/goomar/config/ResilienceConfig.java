@@ -0,0 +1,19 @@
+package com.goomar.config;
+
+import io.github.resilience4j.common.circuitbreaker.configuration.CircuitBreakerConfigCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class ResilienceConfig {
+
+    @Bean
+    public CircuitBreakerConfigCustomizer calendarBreakerCustomizer() {
+        return CircuitBreakerConfigCustomizer.of(GoogleGuard.CALENDAR, builder -> builder.recordException(GoogleGuard::isOutage));
+    }
+
+    @Bean
+    public CircuitBreakerConfigCustomizer gmailBreakerCustomizer() {
+        return CircuitBreakerConfigCustomizer.of(GoogleGuard.GMAIL, builder -> builder.recordException(GoogleGuard::isOutage));
+    }
+}
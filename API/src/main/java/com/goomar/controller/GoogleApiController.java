@@ -2,6 +2,11 @@ package com.goomar.controller;
 
 import com.google.api.client.auth.oauth2.TokenResponse;
 import com.google.api.client.googleapis.auth.oauth2.GoogleAuthorizationCodeFlow;
+import com.goomar.config.GoogleCredentials;
+import com.goomar.config.GoogleOAuthState;
+import com.goomar.tenant.Tenant;
+import com.goomar.tenant.TenantContext;
+import com.goomar.tenant.TenantRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.openapitools.api.GoogleApi;
@@ -17,21 +22,33 @@ import java.io.IOException;
 @Slf4j
 public class GoogleApiController implements GoogleApi {
     private final GoogleAuthorizationCodeFlow flow;
+    private final GoogleCredentials credentials;
+    private final TenantRegistry tenants;
+    private final GoogleOAuthState oauthState;
 
     @Value("${goomar.redirectUri}")
     private String redirectUri;
 
     @Override
     public ResponseEntity<String> googleAuth() {
-        String authUrl = flow.newAuthorizationUrl().setRedirectUri(redirectUri).set("access_type", "offline").set("prompt", "consent").build();
+        String authUrl = flow.newAuthorizationUrl().setRedirectUri(redirectUri).set("access_type", "offline").set("prompt", "consent")
+                .setState(oauthState.issue(TenantContext.currentId())).build();
         return new ResponseEntity("<a href=\"" + authUrl + "\" target=\"_blank\">Authorize Google Access</a>", HttpStatus.OK);
     }
 
     @Override
-    public ResponseEntity<String> googleCallback(String code)  {
+    public ResponseEntity<String> googleCallback(String code, String state)  {
+        String tenantId = oauthState.verify(state);
+        Tenant tenant = tenantId == null ? null : tenants.get(tenantId);
+        if (tenant == null) {
+            log.warn("Google callback with an invalid or expired state");
+            return new ResponseEntity<>("Invalid or expired authorization request, please start again.", HttpStatus.BAD_REQUEST);
+        }
         try {
             TokenResponse tokenResponse = flow.newTokenRequest(code).setRedirectUri(redirectUri).execute();
-            flow.createAndStoreCredential(tokenResponse, "user");
+            flow.createAndStoreCredential(tokenResponse, tenant.credentialUser());
+            credentials.reset(tenant.credentialUser());
+            log.info("🔑 Google authorized for tenant {}", tenant.id());
             return new ResponseEntity<>("Authorization successful! You can now use Calendar and Gmail APIs.", HttpStatus.OK);
         } catch (IOException e) {
             return new ResponseEntity<>("Authorization successful! You can now use Calendar and Gmail APIs.", HttpStatus.UNAUTHORIZED);
@@ -1,19 +1,42 @@
 package com.goomar.controller;
 
 import com.goomar.service.ICalendarService;
-import com.goomar.service.IGmailService;
 import com.goomar.service.IEntryService;
+import com.goomar.service.IIdempotencyService;
+import com.goomar.service.IMailOutboxService;
+import com.goomar.service.IReservationWorkflow;
+import com.goomar.tenant.TenantContext;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.openapitools.api.ReservationsApi;
+import org.openapitools.model.DayFreeSlotsRest;
 import org.openapitools.model.FreeSlotRest;
+import org.openapitools.model.ReservationPageRest;
 import org.openapitools.model.ReservationRest;
 import org.openapitools.model.UpdateReservationRest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.security.MessageDigest;
 import java.time.LocalDate;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.UUID;
 
@@ -23,71 +46,122 @@ import java.util.UUID;
 public class ReservationController implements ReservationsApi {
     private final IEntryService entryService;
     private final ICalendarService calendarService;
-    private final IGmailService emailService;
+    private final IMailOutboxService mailOutbox;
+    private final IReservationWorkflow reservationWorkflow;
+    private final IIdempotencyService idempotency;
+    private final HttpServletRequest request;
+    private final HttpServletResponse response;
+    private final ObjectMapper objectMapper;
+    private ObjectWriter reservationWriter;
+
+    @Value("${goomar.freeslots.maxAge:PT10S}")
+    private Duration freeSlotsMaxAge;
+
+    @PostConstruct
+    void init() {
+        reservationWriter = objectMapper.writerFor(ReservationRest.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
 
     @Override
     public ResponseEntity<List<FreeSlotRest>> getFreeSlots(Integer year, Integer month, Integer day, Boolean _long) {
-        return new ResponseEntity(calendarService.getFreeSlots(LocalDate.of(year, month, day), _long), HttpStatus.OK);
+        LocalDate date = LocalDate.of(year, month, day);
+        String version = calendarService.availabilityVersion(date);
+        if (version == null) {
+            return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(calendarService.getFreeSlots(date, _long));
+        }
+        String etag = "\"" + date + "-" + (Boolean.TRUE.equals(_long) ? "L" : "S") + "-" + version + "\"";
+        CacheControl cacheControl = CacheControl.maxAge(freeSlotsMaxAge).cachePublic().mustRevalidate();
+        if (new ServletWebRequest(request).checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(cacheControl).build();
+        }
+        return ResponseEntity.ok().eTag(etag).cacheControl(cacheControl).body(calendarService.getFreeSlots(date, _long));
     }
 
     @Override
-    public ResponseEntity<Void> createReservation(ReservationRest rr) {
-        log.info("createReservation(rr={})", rr);
+    public ResponseEntity<List<DayFreeSlotsRest>> getFreeSlotsRange(LocalDate from, LocalDate to, Boolean _long) {
+        List<DayFreeSlotsRest> days = calendarService.getFreeSlots(from, to, _long).entrySet().stream()
+                .map(e -> new DayFreeSlotsRest().date(e.getKey()).slots(e.getValue())).toList();
+        return new ResponseEntity<>(days, HttpStatus.OK);
+    }
+
+    /** With an {@code Idempotency-Key}, a retry of the same request gets the first UUID back without a new entry or mail. */
+    @Override
+    @Transactional
+    @SneakyThrows
+    public ResponseEntity<Void> createReservation(ReservationRest rr, String idempotencyKey) {
+        log.info("createReservation(rr={}, idempotencyKey={})", rr, idempotencyKey);
+        if (idempotencyKey == null) return new ResponseEntity(insertReservation(rr), HttpStatus.OK);
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > 128) throw new IllegalArgumentException("Invalid Idempotency-Key");
+
+        String requestHash = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(rr)));
+        IIdempotencyService.Outcome outcome = idempotency.execute(TenantContext.currentId() + ":reservation:" + idempotencyKey, requestHash, () -> insertReservation(rr).toString());
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Idempotent-Replayed", Boolean.toString(outcome.replayed()));
+        return new ResponseEntity(UUID.fromString(outcome.response()), headers, HttpStatus.OK);
+    }
+
+    private UUID insertReservation(ReservationRest rr) {
         UUID uuid = entryService.insertReservation(rr);
-        emailService.sendReservation(rr, uuid);
-        return new ResponseEntity(uuid, HttpStatus.OK);
+        mailOutbox.enqueueReservation(rr, uuid);
+        return uuid;
     }
 
     @Override
     public ResponseEntity<String> confirmEmailOK(String id) {
         log.info("confirmEmailOK(uuid={})", id);
-        ReservationRest rr = entryService.get(id);
-        if (!rr.getEmailOk()) {
-            if (calendarService.slotFree(rr.getDateTime(), rr.getLong())){
-                return new ResponseEntity("<html><body><h2>Rezervacija zauzeta od drugog korisnika!</h2></body></html>",  HttpStatus.INTERNAL_SERVER_ERROR);
-            }
-            String event_id = calendarService.insertAppointment(entryService.get(id));
-            entryService.setEventId(id, event_id);
-            return new ResponseEntity(entryService.confirmEmailOK(id), HttpStatus.OK);
-        } else {
-            log.info("Email already confirmed, id = {}", id);
+        if (reservationWorkflow.isConfirmed(id)) {
             return new ResponseEntity("<html><body><h2>Rezervacija prethodno potvrđena!</h2></body></html>", HttpStatus.OK);
         }
+        switch (reservationWorkflow.confirmEmail(id)) {
+            case TAKEN:
+                return new ResponseEntity("<html><body><h2>Rezervacija zauzeta od drugog korisnika!</h2></body></html>", HttpStatus.CONFLICT);
+            case ALREADY_CONFIRMED:
+                return new ResponseEntity("<html><body><h2>Rezervacija prethodno potvrđena!</h2></body></html>", HttpStatus.OK);
+            default:
+                return new ResponseEntity("<html><body><h2>Rezervacija potvrđena!</h2></body></html>", HttpStatus.OK);
+        }
     }
 
     @Override
     public ResponseEntity<Void> updateReservation(String authorization, UpdateReservationRest urr) {
         log.info("updateAppointment(urr={})", urr);
-        if (urr.getApproved()) {
-            log.info("Regular approvement, id = {}", urr.getId());
-            ReservationRest rr = entryService.confirmReservation(urr.getId());
-            calendarService.confirmAppointment(rr.getEventId());
-            emailService.sendConfirmation(rr);
-        } else {
-            ReservationRest rr = entryService.setEmail(urr);
-            if (urr.getSendMail()) {
-                log.info("Invalid e-mail, send new one, id = {}", urr.getId());
-                emailService.sendReservation(rr, rr.getId());
-            } else {
-                log.info("Invalid e-mail, ignore, approve, id = {}", urr.getId());
-                String event_id = calendarService.insertAppointment(entryService.get(urr.getId()));
-                entryService.setEventId(urr.getId(), event_id);
-            }
-        }
+        reservationWorkflow.update(urr);
         return new ResponseEntity(HttpStatus.CREATED);
     }
 
     @Override
     public ResponseEntity<Void> deleteAppointment(String authorization, String id) {
         log.info("deleteAppointment(id={})", id);
-        ReservationRest rr = entryService.deleteReservation(id);
-        if (rr.getEventId()!=null){
-            calendarService.deleteAppointment(rr.getEventId());
-        }
-        emailService.sendDelete(rr);
+        reservationWorkflow.delete(id);
         return new ResponseEntity(HttpStatus.NO_CONTENT);
     }
 
+    /** Writes the page straight from the database cursor to the response, so memory does not grow with the range. */
+    @Override
+    @SneakyThrows
+    public ResponseEntity<ReservationPageRest> getReservations(String authorization, LocalDate from, LocalDate to, String after, Integer limit) {
+        log.info("getReservations(from={}, to={}, after={}, limit={})", from, to, after, limit);
+        if (to.isBefore(from)) throw new IllegalArgumentException("Invalid reservation range " + from + " - " + to);
+        IEntryService.Keyset start = after == null || after.isBlank() ? null : IEntryService.Keyset.decode(after);
+
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        JsonGenerator json = reservationWriter.createGenerator(response.getOutputStream());
+        json.writeStartObject();
+        json.writeArrayFieldStart("items");
+        IEntryService.Keyset next = entryService.streamReservations(from, to, start, limit, rr -> write(json, rr));
+        json.writeEndArray();
+        if (next != null) json.writeStringField("next", next.encode());
+        json.writeEndObject();
+        json.close();
+        return null;
+    }
+
+    @SneakyThrows
+    private void write(JsonGenerator json, ReservationRest rr) {
+        reservationWriter.writeValue(json, rr);
+    }
+
     @Override
     public ResponseEntity<List<ReservationRest>> getWeekAppointments(String authorization, Integer year, Integer month, Integer day) {
         return new ResponseEntity(entryService.getAppointments(year, month, day), HttpStatus.OK);
@@ -0,0 +1,81 @@
+package com.goomar.mail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * HTML mail template parsed once into alternating literal and {@code {{placeholder}}} segments.
+ * Rendering appends the literals and the HTML-escaped values into one buffer; a placeholder without
+ * a value is written back unchanged.
+ */
+public final class MailTemplate {
+
+    private static final int MAX_RETAINED_BUFFER = 64 * 1024;
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(8 * 1024));
+
+    private final String[] literals;
+    private final String[] keys;
+    private final int literalLength;
+
+    private MailTemplate(String[] literals, String[] keys) {
+        this.literals = literals;
+        this.keys = keys;
+        int length = 0;
+        for (String literal : literals) length += literal.length();
+        this.literalLength = length;
+    }
+
+    public static MailTemplate compile(String source) {
+        List<String> literals = new ArrayList<>();
+        List<String> keys = new ArrayList<>();
+        int pos = 0;
+        while (true) {
+            int open = source.indexOf("{{", pos);
+            int close = open < 0 ? -1 : source.indexOf("}}", open + 2);
+            if (close < 0) break;
+            literals.add(source.substring(pos, open));
+            keys.add(source.substring(open + 2, close).trim());
+            pos = close + 2;
+        }
+        literals.add(source.substring(pos));
+        return new MailTemplate(literals.toArray(String[]::new), keys.toArray(String[]::new));
+    }
+
+    public String render(Map<String, String> values) {
+        StringBuilder out = BUFFER.get();
+        out.setLength(0);
+        renderTo(values, out);
+        String result = out.toString();
+        if (out.capacity() > MAX_RETAINED_BUFFER) BUFFER.remove();
+        return result;
+    }
+
+    public void renderTo(Map<String, String> values, StringBuilder out) {
+        out.ensureCapacity(out.length() + literalLength + 64 * keys.length);
+        for (int i = 0; i < keys.length; i++) {
+            out.append(literals[i]);
+            String value = values.get(keys[i]);
+            if (value == null) {
+                out.append("{{").append(keys[i]).append("}}");
+            } else {
+                escapeHtml(value, out);
+            }
+        }
+        out.append(literals[keys.length]);
+    }
+
+    static void escapeHtml(String value, StringBuilder out) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '&' -> out.append("&amp;");
+                case '<' -> out.append("&lt;");
+                case '>' -> out.append("&gt;");
+                case '"' -> out.append("&quot;");
+                case '\'' -> out.append("&#39;");
+                default -> out.append(c);
+            }
+        }
+    }
+}
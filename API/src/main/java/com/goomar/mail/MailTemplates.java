@@ -0,0 +1,83 @@
+package com.goomar.mail;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compiled mail templates by name. Templates come from {@code classpath:templates/}; when
+ * {@code goomar.mail.templates.dir} is set, a file of the same name there overrides the classpath one
+ * and is recompiled whenever its modification time changes.
+ */
+@Component
+@Slf4j
+public class MailTemplates {
+
+    private record Loaded(MailTemplate template, FileTime modified) {
+    }
+
+    private final Path overrideDir;
+    private final Map<String, Loaded> templates = new ConcurrentHashMap<>();
+
+    public MailTemplates(@Value("${goomar.mail.templates.dir:}") String overrideDir) {
+        this.overrideDir = overrideDir.isBlank() ? null : Path.of(overrideDir);
+    }
+
+    public MailTemplate get(String name) {
+        return templates.computeIfAbsent(name, this::load).template();
+    }
+
+    @Scheduled(fixedDelayString = "${goomar.mail.templates.reloadInterval:PT10S}")
+    public void reloadChanged() {
+        if (overrideDir == null) return;
+        templates.replaceAll((name, loaded) -> {
+            FileTime modified = modified(overrideDir.resolve(name));
+            if (modified == null ? loaded.modified() == null : modified.equals(loaded.modified())) return loaded;
+            try {
+                Loaded reloaded = load(name);
+                log.info("📝 Mail template {} reloaded", name);
+                return reloaded;
+            } catch (UncheckedIOException e) {
+                log.warn("Failed to reload mail template {}: {}", name, e.getMessage());
+                return loaded;
+            }
+        });
+    }
+
+    private Loaded load(String name) {
+        try {
+            if (overrideDir != null) {
+                Path file = overrideDir.resolve(name);
+                FileTime modified = modified(file);
+                if (modified != null) {
+                    return new Loaded(MailTemplate.compile(Files.readString(file, StandardCharsets.UTF_8)), modified);
+                }
+            }
+            try (InputStream in = new ClassPathResource("templates/" + name).getInputStream()) {
+                return new Loaded(MailTemplate.compile(new String(in.readAllBytes(), StandardCharsets.UTF_8)), null);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load template: " + name, e);
+        }
+    }
+
+    private static FileTime modified(Path file) {
+        try {
+            return Files.isRegularFile(file) ? Files.getLastModifiedTime(file) : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
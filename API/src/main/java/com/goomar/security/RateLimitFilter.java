@@ -0,0 +1,159 @@
+package com.goomar.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.goomar.advice.ErrorMessage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per client IP and endpoint token buckets in front of the public booking endpoints, which fan out into Google
+ * Calendar and Gmail. Over the limit the request gets 429 with {@code Retry-After}. Buckets live in a bounded map;
+ * full buckets are dropped by a sweep, and past {@code maxBuckets} arbitrary ones are evicted.
+ * Runs inside the security chain only (see {@link WebSecurityConfig}); client IPs come from
+ * {@code server.forward-headers-strategy}, never from a raw header.
+ */
+@Slf4j
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final long MINUTE = TimeUnit.MINUTES.toNanos(1);
+
+    private final class Rule {
+        final String name;
+        final String path;
+        final int perMinute;
+        final int burst;
+        final Counter allowed;
+        final Counter rejected;
+
+        Rule(String name, String path, int perMinute, int burst) {
+            this.name = name;
+            this.path = path;
+            this.perMinute = perMinute;
+            this.burst = burst;
+            this.allowed = requests(name, "allowed");
+            this.rejected = requests(name, "rejected");
+        }
+
+        boolean matches(String uri) {
+            return uri.equals(path) || uri.startsWith(path + "/");
+        }
+    }
+
+    private record Key(String client, String rule) {
+    }
+
+    private final MeterRegistry registry;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final int maxBuckets;
+    private final List<Rule> rules;
+    private final Counter evictions;
+    private final Map<Key, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    public RateLimitFilter(MeterRegistry registry, ObjectMapper objectMapper,
+                           @Value("${goomar.ratelimit.enabled:true}") boolean enabled,
+                           @Value("${goomar.ratelimit.maxBuckets:100000}") int maxBuckets,
+                           @Value("${goomar.ratelimit.freeslots.perMinute:60}") int freeSlotsPerMinute,
+                           @Value("${goomar.ratelimit.freeslots.burst:20}") int freeSlotsBurst,
+                           @Value("${goomar.ratelimit.reservation.perMinute:6}") int reservationPerMinute,
+                           @Value("${goomar.ratelimit.reservation.burst:3}") int reservationBurst,
+                           @Value("${goomar.ratelimit.confirmation.perMinute:10}") int confirmationPerMinute,
+                           @Value("${goomar.ratelimit.confirmation.burst:5}") int confirmationBurst) {
+        this.registry = registry;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.maxBuckets = maxBuckets;
+        this.rules = List.of(
+                new Rule("freeslots", "/V1/freeslots", freeSlotsPerMinute, freeSlotsBurst),
+                new Rule("reservation", "/V1/reservation", reservationPerMinute, reservationBurst),
+                new Rule("confirmation", "/V1/confirmation", confirmationPerMinute, confirmationBurst));
+        this.evictions = registry.counter("ratelimit.evictions");
+        Gauge.builder("ratelimit.buckets", buckets, Map::size).description("Tracked client buckets").register(registry);
+        log.info("🚦 Rate limiter {} (freeslots={}/min, reservation={}/min, confirmation={}/min)", enabled ? "enabled" : "disabled",
+                freeSlotsPerMinute, reservationPerMinute, confirmationPerMinute);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || rule(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain) throws ServletException, IOException {
+        Rule rule = rule(request);
+        long now = System.nanoTime();
+        long wait = bucket(new Key(request.getRemoteAddr(), rule.name), rule, now).tryAcquire(now);
+        if (wait == 0) {
+            rule.allowed.increment();
+            chain.doFilter(request, response);
+            return;
+        }
+
+        rule.rejected.increment();
+        long retryAfter = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(wait + TimeUnit.SECONDS.toNanos(1) - 1));
+        log.debug("Rate limit {} hit by {}, retry after {}s", rule.name, request.getRemoteAddr(), retryAfter);
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfter));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(),
+                new ErrorMessage(HttpStatus.TOO_MANY_REQUESTS.value(), new Date(), "Too many requests, retry in " + retryAfter + "s", "RateLimitExceeded"));
+    }
+
+    /** Drops full buckets; a full bucket is indistinguishable from a new one. */
+    @Scheduled(fixedDelayString = "${goomar.ratelimit.sweepInterval:PT1M}")
+    public void sweep() {
+        long now = System.nanoTime();
+        buckets.values().removeIf(bucket -> bucket.isFull(now));
+    }
+
+    private TokenBucket bucket(Key key, Rule rule, long now) {
+        TokenBucket bucket = buckets.get(key);
+        if (bucket != null) return bucket;
+        if (buckets.size() >= maxBuckets) evict();
+        return buckets.computeIfAbsent(key, k -> new TokenBucket(rule.perMinute, MINUTE, rule.burst, now));
+    }
+
+    private void evict() {
+        sweep();
+        int excess = buckets.size() - maxBuckets + maxBuckets / 10;
+        for (Iterator<TokenBucket> it = buckets.values().iterator(); excess > 0 && it.hasNext(); excess--) {
+            it.next();
+            it.remove();
+            evictions.increment();
+        }
+    }
+
+    private Rule rule(HttpServletRequest request) {
+        String uri = request.getRequestURI().substring(request.getContextPath().length());
+        for (Rule rule : rules) {
+            if (rule.matches(uri)) return rule;
+        }
+        return null;
+    }
+
+    private Counter requests(String endpoint, String result) {
+        return Counter.builder("ratelimit.requests").tag("endpoint", endpoint).tag("result", result).register(registry);
+    }
+}
@@ -0,0 +1,46 @@
+package com.goomar.security;
+
+import com.goomar.tenant.Tenant;
+import com.goomar.tenant.TenantContext;
+import jakarta.servlet.DispatcherType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+
+/**
+ * Grants authenticated requests only to the tenant their token was issued for: the {@code goomar.tenants.claim}
+ * claim (a Keycloak user attribute) must equal the tenant of the path ({@link TenantContext}). Tokens without the
+ * claim belong to the default tenant, as all tokens did before there were tenants. Requests without a tenant (the
+ * actuator on the management port) are the operator's and need a default tenant token. Public paths are matched before
+ * this manager, so they stay open for every tenant.
+ */
+@Slf4j
+@Component
+public class TenantAuthorizationManager implements AuthorizationManager<RequestAuthorizationContext> {
+
+    private final String claim;
+
+    public TenantAuthorizationManager(@Value("${goomar.tenants.claim:tenant}") String claim) {
+        this.claim = claim;
+    }
+
+    @Override
+    public AuthorizationDecision check(Supplier<Authentication> authentication, RequestAuthorizationContext context) {
+        if (!(authentication.get() instanceof JwtAuthenticationToken jwt) || !jwt.isAuthenticated()) return new AuthorizationDecision(false);
+        // an error dispatch has no tenant bound; its request was checked on the way in
+        if (context.getRequest().getDispatcherType() == DispatcherType.ERROR) return new AuthorizationDecision(true);
+        String issuedFor = jwt.getToken().getClaimAsString(claim);
+        String tenant = issuedFor != null ? issuedFor : Tenant.DEFAULT;
+        String target = TenantContext.bound() ? TenantContext.currentId() : Tenant.DEFAULT;
+        boolean granted = tenant.equals(target);
+        if (!granted) log.warn("Token of {} issued for tenant {} used on tenant {}", jwt.getName(), tenant, target);
+        return new AuthorizationDecision(granted);
+    }
+}
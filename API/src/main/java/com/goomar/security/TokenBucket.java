@@ -0,0 +1,37 @@
+package com.goomar.security;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket in its GCRA form: the whole state is one "theoretical arrival time". A request moves it
+ * one emission interval ahead; it is rejected when that would put it more than {@code burst} intervals in the future.
+ * A bucket whose arrival time lies in the past is full and can be dropped without losing anything.
+ */
+public final class TokenBucket {
+
+    private final long interval;
+    private final long tolerance;
+    private final AtomicLong arrival;
+
+    /** {@code rate} requests per {@code periodNanos} on average, up to {@code burst} at once. */
+    public TokenBucket(int rate, long periodNanos, int burst, long now) {
+        this.interval = periodNanos / rate;
+        this.tolerance = interval * burst;
+        this.arrival = new AtomicLong(now);
+    }
+
+    /** Takes a token and returns 0, or returns the nanoseconds until one is available. */
+    public long tryAcquire(long now) {
+        while (true) {
+            long current = arrival.get();
+            long next = Math.max(current, now) + interval;
+            long wait = next - now - tolerance;
+            if (wait > 0) return wait;
+            if (arrival.compareAndSet(current, next)) return 0;
+        }
+    }
+
+    public boolean isFull(long now) {
+        return arrival.get() <= now;
+    }
+}
@@ -1,10 +1,12 @@
 package com.goomar.security;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.oauth2.server.resource.web.authentication.BearerTokenAuthenticationFilter;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
@@ -17,8 +19,9 @@ import java.util.List;
 @EnableMethodSecurity
 public class WebSecurityConfig {
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http, RateLimitFilter rateLimitFilter, TenantAuthorizationManager tenantAuthorization) throws Exception {
         http.cors(Customizer.withDefaults()).csrf(csrf -> csrf.disable())
+                .addFilterBefore(rateLimitFilter, BearerTokenAuthenticationFilter.class)
                 .sessionManagement(session -> session.sessionCreationPolicy(org.springframework.security.config.http.SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers(
@@ -34,11 +37,24 @@ public class WebSecurityConfig {
                                 "/V1/freeslots/**",
                                 "/V1/token/**",
                                 "/google/auth",
-                                "/oauth2/callback"
-                        ).permitAll().anyRequest().authenticated()).oauth2ResourceServer(oauth2 -> oauth2.jwt(Customizer.withDefaults()));
+                                "/oauth2/callback",
+                                "/actuator/health/**",
+                                "/actuator/prometheus",
+                                "/actuator/circuitbreakers/**",
+                                "/actuator/bulkheads/**",
+                                "/actuator/timelimiters/**"
+                        ).permitAll().anyRequest().access(tenantAuthorization)).oauth2ResourceServer(oauth2 -> oauth2.jwt(Customizer.withDefaults()));
         return http.build();
     }
 
+    /** The rate limiter runs in the security chain only, not a second time as a plain servlet filter. */
+    @Bean
+    public FilterRegistrationBean<RateLimitFilter> rateLimitFilterRegistration(RateLimitFilter rateLimitFilter) {
+        FilterRegistrationBean<RateLimitFilter> registration = new FilterRegistrationBean<>(rateLimitFilter);
+        registration.setEnabled(false);
+        return registration;
+    }
+
     @Bean
     public CorsConfigurationSource corsConfigurationSource() {
         CorsConfiguration configuration = new CorsConfiguration();
@@ -1,26 +1,88 @@
 package com.goomar.security.services;
 
-import lombok.RequiredArgsConstructor;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
 import org.openapitools.model.GetTokenReq;
 import org.openapitools.model.TokenRsp;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.*;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 
-import java.util.Map;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Password and refresh-token grants against Keycloak over one pooled client; the token endpoint comes from
+ * OIDC discovery and the response is decoded straight into {@link TokenRsp}.
+ */
 @Slf4j
 @Service
-@RequiredArgsConstructor
-public class TokenService implements ITokenService {
+public class TokenService implements ITokenService, DisposableBean {
 
-    @Value("${spring.security.oauth2.resourceserver.jwt.issuer-uri}")
-    private String issuerUri;
+    private record OidcConfiguration(@JsonProperty("token_endpoint") String tokenEndpoint) {
+    }
+
+    private final String issuerUri;
+    private final PoolingHttpClientConnectionManager pool;
+    private final RestTemplate restTemplate;
+    private final MeterRegistry registry;
+    private final Duration discoveryRetry;
+    private final AtomicLong nextDiscovery = new AtomicLong();
+    private volatile String tokenEndpoint;
+
+    public TokenService(RestTemplateBuilder builder, MeterRegistry registry,
+                        @Value("${spring.security.oauth2.resourceserver.jwt.issuer-uri}") String issuerUri,
+                        @Value("${goomar.keycloak.connectTimeout:PT3S}") Duration connectTimeout,
+                        @Value("${goomar.keycloak.readTimeout:PT10S}") Duration readTimeout,
+                        @Value("${goomar.keycloak.idleTimeout:PT60S}") Duration idleTimeout,
+                        @Value("${goomar.keycloak.maxConnections:20}") int maxConnections,
+                        @Value("${goomar.keycloak.discoveryRetry:PT1M}") Duration discoveryRetry) {
+        this.issuerUri = issuerUri;
+        this.registry = registry;
+        this.discoveryRetry = discoveryRetry;
+
+        this.pool = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnections)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(connectTimeout))
+                        .setSocketTimeout(Timeout.of(readTimeout))
+                        .build())
+                .build();
+        CloseableHttpClient httpClient = HttpClients.custom()
+                .setConnectionManager(pool)
+                .disableAutomaticRetries()
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.of(idleTimeout))
+                .build();
+        this.restTemplate = builder.requestFactory(() -> new HttpComponentsClientHttpRequestFactory(httpClient)).build();
+
+        Gauge.builder("keycloak.http.pool.leased", pool, p -> p.getTotalStats().getLeased()).register(registry);
+        Gauge.builder("keycloak.http.pool.available", pool, p -> p.getTotalStats().getAvailable()).register(registry);
+        Gauge.builder("keycloak.http.pool.pending", pool, p -> p.getTotalStats().getPending()).register(registry);
+    }
+
+    @Override
+    public void destroy() {
+        pool.close();
+    }
 
     @Override
     public TokenRsp getToken(GetTokenReq getTokenRequest) {
@@ -39,43 +101,56 @@ public class TokenService implements ITokenService {
             return getTokenUserNamePassword(getTokenRequest, formData, headers);
         }
     }
-    private TokenRsp getTokenRefresh(GetTokenReq getTokenRequest, MultiValueMap<String, String> formData, HttpHeaders headers) {
 
-        RestTemplate restTemplate = new RestTemplate();
+    private TokenRsp getTokenRefresh(GetTokenReq getTokenRequest, MultiValueMap<String, String> formData, HttpHeaders headers) {
         formData.add("grant_type", "refresh_token");
         formData.add("refresh_token", getTokenRequest.getRefreshToken());
 
-        return getTokenRsp(formData, headers, restTemplate);
+        return getTokenRsp(formData, headers, "refresh_token");
     }
-    private TokenRsp getTokenUserNamePassword(GetTokenReq getTokenRequest, MultiValueMap<String, String> formData, HttpHeaders headers) {
-
-        RestTemplate restTemplate = new RestTemplate();
 
+    private TokenRsp getTokenUserNamePassword(GetTokenReq getTokenRequest, MultiValueMap<String, String> formData, HttpHeaders headers) {
         formData.add("grant_type", "password");
         formData.add("username", getTokenRequest.getUsername());
         formData.add("password", getTokenRequest.getPassword());
 
-        return getTokenRsp(formData, headers, restTemplate);
+        return getTokenRsp(formData, headers, "password");
     }
 
-    private TokenRsp getTokenRsp(MultiValueMap<String, String> formData, HttpHeaders headers, RestTemplate restTemplate) {
+    private TokenRsp getTokenRsp(MultiValueMap<String, String> formData, HttpHeaders headers, String grant) {
         HttpEntity<MultiValueMap<String, String>> request = new HttpEntity<>(formData, headers);
-        final String url =  issuerUri + "/protocol/openid-connect/token";
-        ResponseEntity<Map<String, Object>> response = restTemplate.exchange(url, HttpMethod.POST, request, new ParameterizedTypeReference<>() {});
-
-        if (response.getBody() != null) {
-            Map<String, Object> sr = response.getBody();
-            return new TokenRsp()
-                    .accessToken((String) sr.get("access_token"))
-                    .idToken((String) sr.get("id_token"))
-                    .refreshToken((String) sr.get("refresh_token"))
-                    .refreshExpiresIn(Integer.parseInt(sr.get("refresh_expires_in").toString()))
-                    .tokenType((String) sr.get("token_type"))
-                    .expiresIn(Integer.parseInt(sr.get("expires_in").toString()))
-                    .notBeforePolicy(Integer.parseInt(sr.get("not-before-policy").toString()))
-                    .scope((String) sr.get("scope"))
-                    .sessionState((String) sr.get("session_state"));
+        Timer.Sample sample = Timer.start(registry);
+        String outcome = "error";
+        try {
+            TokenRsp tokenRsp = restTemplate.postForObject(tokenEndpoint(), request, TokenRsp.class);
+            outcome = "success";
+            return tokenRsp;
+        } finally {
+            sample.stop(Timer.builder("keycloak.token").description("Keycloak token exchange")
+                    .tag("grant", grant).tag("outcome", outcome).publishPercentileHistogram().register(registry));
+        }
+    }
+
+    /**
+     * Token endpoint from OIDC discovery, resolved once. Until discovery succeeds the Keycloak default path is used;
+     * a failed discovery is retried by one caller at most every {@code goomar.keycloak.discoveryRetry}.
+     */
+    private String tokenEndpoint() {
+        String endpoint = tokenEndpoint;
+        if (endpoint != null) return endpoint;
+        String fallback = issuerUri + "/protocol/openid-connect/token";
+        long now = System.currentTimeMillis();
+        long next = nextDiscovery.get();
+        if (now < next || !nextDiscovery.compareAndSet(next, now + discoveryRetry.toMillis())) return fallback;
+        try {
+            OidcConfiguration configuration = restTemplate.getForObject(issuerUri + "/.well-known/openid-configuration", OidcConfiguration.class);
+            if (configuration != null && configuration.tokenEndpoint() != null) {
+                log.info("Keycloak token endpoint: {}", configuration.tokenEndpoint());
+                return tokenEndpoint = configuration.tokenEndpoint();
+            }
+        } catch (RestClientException e) {
+            log.warn("OIDC discovery on {} failed, retry in {}: {}", issuerUri, discoveryRetry, e.getMessage());
         }
-        return null;
+        return fallback;
     }
-}
\ No newline at end of file
+}
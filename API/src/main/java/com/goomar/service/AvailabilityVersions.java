@@ -0,0 +1,70 @@
+package com.goomar.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-tenant, per-day availability version behind the free-slot ETags. Bumped whenever a calendar event or reservation
+ * of the day changes; inside a transaction the bump waits for the commit. The epoch part changes on restart
+ * and on a full calendar resync of the tenant, which invalidates all its days at once. Reservation changes made by
+ * other replicas arrive through the {@link InvalidationBus} as {@code tenant/day}.
+ */
+@Component
+@RequiredArgsConstructor
+public class AvailabilityVersions {
+
+    static final String ENTRIES = "entries";
+
+    private final InvalidationBus bus;
+
+    private final Map<String, Map<LocalDate, AtomicLong>> versions = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> epochs = new ConcurrentHashMap<>();
+    private final long started = System.currentTimeMillis();
+
+    @PostConstruct
+    void init() {
+        bus.subscribe(ENTRIES, key -> {
+            int slash = key == null ? -1 : key.indexOf('/');
+            if (slash < 0) epochs.values().forEach(AtomicLong::incrementAndGet);
+            else bump(key.substring(0, slash), LocalDate.parse(key.substring(slash + 1)));
+        });
+    }
+
+    public String version(String tenant, LocalDate day) {
+        AtomicLong version = versions.getOrDefault(tenant, Map.of()).get(day);
+        return Long.toString(epoch(tenant).get(), 36) + "-" + (version == null ? 0 : version.get());
+    }
+
+    public void changed(String tenant, LocalDate day) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    bump(tenant, day);
+                }
+            });
+        } else {
+            bump(tenant, day);
+        }
+    }
+
+    public void changedAll(String tenant) {
+        epoch(tenant).incrementAndGet();
+    }
+
+    private AtomicLong epoch(String tenant) {
+        return epochs.computeIfAbsent(tenant, t -> new AtomicLong(started));
+    }
+
+    private void bump(String tenant, LocalDate day) {
+        versions.computeIfAbsent(tenant, t -> new ConcurrentHashMap<>()).computeIfAbsent(day, d -> new AtomicLong()).incrementAndGet();
+    }
+}
@@ -0,0 +1,210 @@
+package com.goomar.service;
+
+import com.google.api.client.util.DateTime;
+import com.google.api.services.calendar.model.Event;
+import com.google.api.services.calendar.model.EventDateTime;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * In-memory copy of the busy intervals of one Google calendar, bucketed by local day.
+ * Filled by a full sync and kept current with Calendar sync-token deltas and our own writes.
+ * Reads are lock-free, writes are serialized on the instance; every change is reported to the {@link Listener}.
+ * A published {@link Window} is never changed: a full sync builds a new one, and a single change copies the maps it
+ * touches (the days of the event before and after) into the next one, so readers see an event either where it was or
+ * where it moved to, never half applied.
+ */
+public class BusyIndex {
+
+    public interface Listener {
+        void changed(LocalDate day);
+
+        void changedAll();
+    }
+
+    public record Busy(String eventId, long start, long end, boolean allDay) {
+        boolean overlaps(long from, long to) {
+            return start < to && end > from;
+        }
+    }
+
+    /** The synced days {@code [from, to]} and their events; {@code from} is {@code null} before the first full sync. */
+    private record Window(LocalDate from, LocalDate to, Map<String, Busy> byId, Map<LocalDate, Map<String, Busy>> byDay) {
+        Window(LocalDate from, LocalDate to) {
+            this(from, to, new HashMap<>(), new HashMap<>());
+        }
+
+        /** A copy to change; the maps of single days are copied once they are touched. */
+        Window copy() {
+            return new Window(from, to, new HashMap<>(byId), new HashMap<>(byDay));
+        }
+    }
+
+    private final ZoneId zone;
+    private final Listener listener;
+
+    private volatile Window window = new Window(null, null);
+    private volatile String syncToken;
+    private volatile Instant lastSync;
+
+    public BusyIndex(ZoneId zone, Listener listener) {
+        this.zone = zone;
+        this.listener = listener;
+    }
+
+    public synchronized void reset(LocalDate from, LocalDate to, Collection<Event> events, String syncToken) {
+        Window rebuilt = new Window(from, to);
+        Set<LocalDate> touched = new HashSet<>();
+        events.forEach(event -> add(rebuilt, event, touched));
+        window = rebuilt;
+        synced(syncToken);
+        listener.changedAll();
+    }
+
+    public synchronized void apply(Event event) {
+        Window next = window.copy();
+        Set<LocalDate> touched = new HashSet<>();
+        remove(next, event.getId(), touched);
+        add(next, event, touched);
+        publish(next, touched);
+    }
+
+    public synchronized void remove(String eventId) {
+        if (eventId == null || !window.byId().containsKey(eventId)) return;
+        Window next = window.copy();
+        Set<LocalDate> touched = new HashSet<>();
+        remove(next, eventId, touched);
+        publish(next, touched);
+    }
+
+    private void publish(Window next, Set<LocalDate> touched) {
+        window = next;
+        touched.forEach(listener::changed);
+    }
+
+    private void remove(Window w, String eventId, Set<LocalDate> touched) {
+        Busy busy = eventId == null ? null : w.byId().remove(eventId);
+        if (busy == null) return;
+        for (LocalDate day = firstDay(w, busy); !day.isAfter(lastDay(w, busy)); day = day.plusDays(1)) {
+            day(w, day, touched).remove(eventId);
+        }
+    }
+
+    private void add(Window w, Event event, Set<LocalDate> touched) {
+        if ("cancelled".equals(event.getStatus()) || "transparent".equals(event.getTransparency())) return;
+        Busy busy = toBusy(event);
+        if (busy == null || w.from() == null) return;
+
+        LocalDate first = firstDay(w, busy);
+        LocalDate last = lastDay(w, busy);
+        if (first.isAfter(last)) return;
+
+        w.byId().put(busy.eventId(), busy);
+        for (LocalDate day = first; !day.isAfter(last); day = day.plusDays(1)) {
+            day(w, day, touched).put(busy.eventId(), busy);
+        }
+    }
+
+    /** The events of {@code day} in {@code w}, copied on the first touch so the published window keeps its own. */
+    private static Map<String, Busy> day(Window w, LocalDate day, Set<LocalDate> touched) {
+        if (touched.add(day)) {
+            Map<String, Busy> events = w.byDay().get(day);
+            w.byDay().put(day, events == null ? new HashMap<>() : new HashMap<>(events));
+        }
+        return w.byDay().get(day);
+    }
+
+    private LocalDate firstDay(Window w, Busy busy) {
+        return max(Instant.ofEpochMilli(busy.start()).atZone(zone).toLocalDate(), w.from());
+    }
+
+    private LocalDate lastDay(Window w, Busy busy) {
+        return min(Instant.ofEpochMilli(busy.end() - 1).atZone(zone).toLocalDate(), w.to());
+    }
+
+    public synchronized void synced(String syncToken) {
+        this.syncToken = syncToken;
+        this.lastSync = Instant.now();
+    }
+
+    public synchronized void invalidate() {
+        this.syncToken = null;
+        this.lastSync = null;
+    }
+
+    public String syncToken() {
+        return syncToken;
+    }
+
+    /** True when the day lies inside the synced window and the last successful sync is younger than {@code maxStaleness}. */
+    public boolean covers(LocalDate day, Duration maxStaleness) {
+        Instant synced = lastSync;
+        Window w = window;
+        return synced != null && w.from() != null && !day.isBefore(w.from()) && !day.isAfter(w.to())
+                && synced.plus(maxStaleness).isAfter(Instant.now());
+    }
+
+    /** True when the day lies inside the window of a past full sync, however old; the last known state during outages. */
+    public boolean holds(LocalDate day) {
+        Window w = window;
+        return w.from() != null && !day.isBefore(w.from()) && !day.isAfter(w.to());
+    }
+
+    /** True when the window no longer reaches {@code horizon} past today and a full sync should move it forward. */
+    public boolean needsRebuild(LocalDate today, int horizonDays) {
+        Window w = window;
+        return syncToken == null || w.from() == null || today.isAfter(w.from().plusDays(1)) || w.to().isBefore(today.plusDays(horizonDays / 2));
+    }
+
+    public Busy get(String eventId) {
+        return eventId == null ? null : window.byId().get(eventId);
+    }
+
+    /** Busy intervals of {@code day} overlapping {@code [fromMs, toMs)}, sorted by start. */
+    public List<Busy> busy(LocalDate day, long fromMs, long toMs) {
+        Map<String, Busy> events = window.byDay().get(day);
+        if (events == null) return List.of();
+        List<Busy> result = new ArrayList<>(events.size());
+        for (Busy busy : events.values()) {
+            if (busy.overlaps(fromMs, toMs)) result.add(busy);
+        }
+        result.sort(Comparator.comparingLong(Busy::start));
+        return result;
+    }
+
+    private Busy toBusy(Event event) {
+        EventDateTime start = event.getStart();
+        EventDateTime end = event.getEnd();
+        if (event.getId() == null || start == null || end == null) return null;
+        if (start.getDateTime() != null && end.getDateTime() != null) {
+            return new Busy(event.getId(), start.getDateTime().getValue(), end.getDateTime().getValue(), false);
+        }
+        if (start.getDate() != null && end.getDate() != null) {
+            return new Busy(event.getId(), startOfDay(start.getDate()), startOfDay(end.getDate()), true);
+        }
+        return null;
+    }
+
+    private long startOfDay(DateTime date) {
+        return LocalDate.parse(date.toStringRfc3339()).atStartOfDay(zone).toInstant().toEpochMilli();
+    }
+
+    private static LocalDate max(LocalDate a, LocalDate b) {
+        return a.isAfter(b) ? a : b;
+    }
+
+    private static LocalDate min(LocalDate a, LocalDate b) {
+        return a.isBefore(b) ? a : b;
+    }
+}
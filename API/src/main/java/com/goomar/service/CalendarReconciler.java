@@ -0,0 +1,253 @@
+package com.goomar.service;
+
+import com.google.api.client.googleapis.json.GoogleJsonResponseException;
+import com.goomar.availability.WorkingHours;
+import com.goomar.tenant.Tenant;
+import com.goomar.tenant.TenantContext;
+import com.goomar.tenant.TenantRegistry;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.jooq.DSLContext;
+import org.jooq.exception.NoDataFoundException;
+import org.jooq.impl.DSL;
+import org.openapitools.model.ReservationRest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Background repair of drift between claimed reservations and Google Calendar:
+ * <ul>
+ *     <li>missing: a claimed reservation without a busy event; the event is restored or created,</li>
+ *     <li>orphan: an event created by us (id derived from a reservation) without a claimed reservation; it is deleted,</li>
+ *     <li>mismatch: the event was moved or resized by hand; the calendar wins and the reservation follows.</li>
+ * </ul>
+ * A run works off the busy index, which follows Calendar sync-token deltas, and never rescans everything: it checks
+ * the days whose {@link AvailabilityVersions availability version} moved since they were last reconciled, plus one
+ * keyset page of upcoming reservations, wrapping around at the end. Drift is repaired only when still present after
+ * {@code grace}, so writes of a booking in flight are left alone. One replica at a time, through an advisory lock;
+ * the tenants are reconciled one after the other, each with its own progress and sharing the repair budget of a run.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CalendarReconciler {
+
+    private static final long LOCK = 0x676f6f6d61720002L;
+    private static final Pattern OWN_EVENT_ID = Pattern.compile("[0-9a-f]{32}");
+    private static final int DAY_LIMIT = 500;
+
+    enum Drift { MISSING, ORPHAN, MISMATCH }
+
+    private record Suspect(Drift drift, String id) {
+    }
+
+    /** Progress of one tenant. */
+    private static final class Progress {
+        final Map<LocalDate, String> reconciled = new ConcurrentHashMap<>();
+        volatile IEntryService.Keyset cursor;
+    }
+
+    private final DSLContext ctx;
+    private final ICalendarService calendarService;
+    private final ICalendarWriteService calendarWrites;
+    private final IEntryService entryService;
+    private final AvailabilityVersions versions;
+    private final MeterRegistry registry;
+    private final TenantRegistry tenants;
+    private final WorkingHoursRegistry workingHours;
+
+    private final Map<String, Progress> progress = new ConcurrentHashMap<>();
+    private final Map<Suspect, Instant> suspects = new ConcurrentHashMap<>();
+
+    @Value("${goomar.reconciler.enabled:true}")
+    private boolean enabled;
+
+    @Value("${goomar.reconciler.repair:true}")
+    private boolean repair;
+
+    @Value("${goomar.reconciler.daysPerRun:7}")
+    private int daysPerRun;
+
+    @Value("${goomar.reconciler.pageSize:200}")
+    private int pageSize;
+
+    @Value("${goomar.reconciler.maxRepairs:20}")
+    private int maxRepairs;
+
+    @Value("${goomar.reconciler.grace:PT5M}")
+    private Duration grace;
+
+    @PostConstruct
+    void init() {
+        Gauge.builder("calendar.reconcile.suspects", suspects, Map::size).description("Drift seen but not repaired yet").register(registry);
+    }
+
+    @Scheduled(fixedDelayString = "${goomar.reconciler.interval:PT1M}", initialDelayString = "PT2M")
+    public void reconcile() {
+        if (!enabled) return;
+        ctx.connection(connection -> {
+            DSLContext session = DSL.using(connection, ctx.dialect());
+            if (!session.select(DSL.field("pg_try_advisory_lock({0})", Boolean.class, LOCK)).fetchSingle().value1()) return;
+            try {
+                Timer.builder("calendar.reconcile.run").register(registry).record(this::run);
+            } finally {
+                session.select(DSL.field("pg_advisory_unlock({0})", Boolean.class, LOCK)).fetch();
+            }
+        });
+    }
+
+    private void run() {
+        int[] repairs = {maxRepairs};
+        suspects.values().removeIf(seen -> seen.isBefore(Instant.now().minus(Duration.ofDays(1))));
+        progress.keySet().removeIf(id -> tenants.get(id) == null);
+        for (Tenant tenant : tenants.all()) {
+            try {
+                TenantContext.run(tenant, () -> reconcileTenant(progress.computeIfAbsent(tenant.id(), id -> new Progress()), repairs));
+            } catch (RuntimeException e) {
+                log.warn("Reconciling {} failed: {}", tenant.id(), e.getMessage());
+            }
+        }
+    }
+
+    private void reconcileTenant(Progress progress, int[] repairs) {
+        Map<LocalDate, String> reconciled = progress.reconciled;
+        Set<UUID> queued = calendarWrites.pendingEntries();
+        ZoneId zone = calendarService.zone();
+        LocalDate today = LocalDate.now(zone);
+        reconciled.keySet().removeIf(day -> day.isBefore(today));
+
+        int days = 0;
+        for (LocalDate day = today; days < daysPerRun; day = day.plusDays(1)) {
+            List<BusyIndex.Busy> events = calendarService.indexedEvents(day);
+            if (events == null) break;
+            String version = versions.version(TenantContext.currentId(), day);
+            if (version.equals(reconciled.get(day))) continue;
+            days++;
+            if (reconcileDay(day, events, queued, zone, repairs)) reconciled.put(day, version);
+        }
+
+        List<ReservationRest> page = new ArrayList<>();
+        IEntryService.Keyset start = progress.cursor;
+        progress.cursor = entryService.streamReservations(today, today.plusYears(1), start, pageSize, page::add);
+        for (ReservationRest rr : page) {
+            if (!rr.getEmailOk() || queued.contains(rr.getId())) continue;
+            LocalDate day = rr.getDateTime().toLocalDate();
+            if (calendarService.indexedEvents(day) == null) continue;
+            if (!checkReservation(rr, zone, repairs)) reconciled.remove(day);
+        }
+    }
+
+    /** Returns true when the day is clean, or all its drift got repaired. */
+    private boolean reconcileDay(LocalDate day, List<BusyIndex.Busy> events, Set<UUID> queued, ZoneId zone, int[] repairs) {
+        List<ReservationRest> reservations = new ArrayList<>();
+        entryService.streamReservations(day, day, null, DAY_LIMIT, reservations::add);
+
+        boolean clean = true;
+        Set<String> referenced = new HashSet<>();
+        Map<UUID, ReservationRest> claimed = new HashMap<>();
+        for (ReservationRest rr : reservations) {
+            if (rr.getEventId() != null) referenced.add(rr.getEventId());
+            if (!rr.getEmailOk()) continue;
+            claimed.put(rr.getId(), rr);
+            if (queued.contains(rr.getId())) continue;
+            clean &= checkReservation(rr, zone, repairs);
+        }
+        for (BusyIndex.Busy event : events) {
+            if (referenced.contains(event.eventId()) || !OWN_EVENT_ID.matcher(event.eventId()).matches()) continue;
+            UUID entryId = toEntryId(event.eventId());
+            if (claimed.containsKey(entryId) || queued.contains(entryId) || isClaimedElsewhere(entryId)) continue;
+            clean &= drift(Drift.ORPHAN, event.eventId(), repairs, () -> calendarService.deleteAppointment(event.eventId()));
+        }
+        return clean;
+    }
+
+    private boolean checkReservation(ReservationRest rr, ZoneId zone, int[] repairs) {
+        String id = rr.getId().toString();
+        BusyIndex.Busy event = calendarService.indexedEvent(rr.getEventId());
+        if (event == null) {
+            return drift(Drift.MISSING, id, repairs, () -> restore(rr));
+        }
+        if (event.allDay()) return true;
+        LocalDateTime start = Instant.ofEpochMilli(event.start()).atZone(zone).toLocalDateTime();
+        long minutes = Duration.ofMillis(event.end() - event.start()).toMinutes();
+        WorkingHours hours = workingHours.current();
+        boolean _long = minutes == hours.minutes(true) || (minutes != hours.minutes(false) && rr.getLong());
+        if (start.equals(rr.getDateTime()) && _long == rr.getLong()) {
+            suspects.remove(new Suspect(Drift.MISMATCH, id));
+            return true;
+        }
+        return drift(Drift.MISMATCH, id, repairs, () -> entryService.reschedule(id, start, _long));
+    }
+
+    private void restore(ReservationRest rr) {
+        if (rr.getEventId() != null) {
+            try {
+                calendarService.restoreAppointment(rr.getEventId());
+                return;
+            } catch (Exception e) {
+                if (!(e instanceof GoogleJsonResponseException g) || g.getStatusCode() != 404) throw e;
+            }
+        }
+        entryService.setEventId(rr.getId().toString(), calendarService.insertAppointment(rr));
+    }
+
+    /** Reports drift once and repairs it when it outlived the grace period; returns true when nothing is left to do. */
+    private boolean drift(Drift drift, String id, int[] repairs, Runnable fix) {
+        Suspect suspect = new Suspect(drift, id);
+        Instant seen = suspects.putIfAbsent(suspect, Instant.now());
+        if (seen == null) {
+            registry.counter("calendar.reconcile.drift", "type", drift.name().toLowerCase()).increment();
+            log.info("🔍 Calendar drift {} on {}", drift, id);
+            return false;
+        }
+        if (!repair || seen.plus(grace).isAfter(Instant.now()) || repairs[0] <= 0) return false;
+        repairs[0]--;
+        try {
+            fix.run();
+            suspects.remove(suspect);
+            registry.counter("calendar.reconcile.repaired", "type", drift.name().toLowerCase(), "result", "ok").increment();
+            log.info("🩹 Calendar drift {} on {} repaired", drift, id);
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            registry.counter("calendar.reconcile.repaired", "type", drift.name().toLowerCase(), "result", "conflict").increment();
+            log.warn("Calendar drift {} on {} not repaired, slot conflict: {}", drift, id, e.getMostSpecificCause().getMessage());
+        } catch (RuntimeException e) {
+            registry.counter("calendar.reconcile.repaired", "type", drift.name().toLowerCase(), "result", "failed").increment();
+            log.warn("Calendar drift {} on {} not repaired: {}", drift, id, e.getMessage());
+        }
+        return false;
+    }
+
+    private boolean isClaimedElsewhere(UUID entryId) {
+        try {
+            return entryService.get(entryId.toString()).getEmailOk();
+        } catch (NoDataFoundException e) {
+            return false;
+        }
+    }
+
+    private static UUID toEntryId(String eventId) {
+        return UUID.fromString(eventId.replaceFirst("(.{8})(.{4})(.{4})(.{4})(.{12})", "$1-$2-$3-$4-$5"));
+    }
+}
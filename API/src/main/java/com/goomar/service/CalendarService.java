@@ -1,78 +1,158 @@
 package com.goomar.service;
 
-import com.google.api.client.auth.oauth2.Credential;
-import com.google.api.client.googleapis.auth.oauth2.GoogleAuthorizationCodeFlow;
-import com.google.api.client.googleapis.javanet.GoogleNetHttpTransport;
 import com.google.api.client.googleapis.json.GoogleJsonResponseException;
 import com.google.api.client.json.jackson2.JacksonFactory;
 import com.google.api.client.util.DateTime;
 import com.google.api.services.calendar.Calendar;
 import com.google.api.services.calendar.model.*;
+import com.goomar.availability.BusyIntervals;
+import com.goomar.availability.DayClock;
+import com.goomar.availability.DayTemplate;
+import com.goomar.availability.SlotEngine;
+import com.goomar.availability.WorkingHours;
+import com.goomar.config.GoogleCallMetrics;
+import com.goomar.config.GoogleCredentials;
+import com.goomar.config.GoogleGuard;
+import com.goomar.config.GoogleHttp;
+import com.goomar.tenant.Tenant;
+import com.goomar.tenant.TenantContext;
+import com.goomar.tenant.TenantRegistry;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.openapitools.model.FreeSlotRest;
 import org.openapitools.model.ReservationRest;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.time.*;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Google Calendar of the current tenant ({@link TenantContext}). Each tenant has its own busy index, sync lock and
+ * Calendar client over the shared HTTP transport; they are created on first use and dropped with the tenant.
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class CalendarService implements ICalendarService {
 
-    @Value("${goomar.calendarId}")
-    private String calendarId;
+    private static final String API = GoogleGuard.CALENDAR;
+    /** Partial responses: only what the busy index and the free-slot calculation read. */
+    private static final String EVENT_FIELDS = "id,status,transparency,start,end";
+    private static final String SLOT_PAGE_FIELDS = "nextPageToken,items(id,start,end)";
+    private static final String CALENDAR_CHANGED = "calendar";
+    private static final String COLOR_PENDING = "5";
+    private static final String COLOR_CONFIRMED = "10";
+    private static final String SYNC_PAGE_FIELDS = "nextPageToken,nextSyncToken,items(" + EVENT_FIELDS + ")";
 
-    private final GoogleAuthorizationCodeFlow flow;
-    private final ZoneId zone = ZoneId.of("Europe/Zagreb");
+    @Value("${goomar.freeslots.maxRangeDays:31}")
+    private int maxRangeDays;
 
-    private Calendar calendarClient;
-    private Credential credential;
+    @Value("${goomar.calendar.index.enabled:true}")
+    private boolean indexEnabled;
 
-    @SneakyThrows
-    private synchronized void ensureCalendarReady() {
-        if (this.calendarClient == null || this.credential == null) {
-            log.info("Initializing Google Calendar client...");
-            this.credential = flow.loadCredential("user");
-            if (this.credential == null) {
-                throw new IllegalStateException("User must authorize first via OAuth flow!");
-            }
+    @Value("${goomar.calendar.index.maxStaleness:PT2M}")
+    private Duration indexMaxStaleness;
+
+    @Value("${goomar.calendar.index.horizonDays:60}")
+    private int indexHorizonDays;
+
+    private final GoogleCredentials credentials;
+    private final GoogleHttp googleHttp;
+    private final GoogleCallMetrics metrics;
+    private final GoogleGuard guard;
+    private final AvailabilityVersions versions;
+    private final InvalidationBus bus;
+    private final TenantRegistry tenants;
+    private final WorkingHoursRegistry workingHours;
+    private final Map<String, TenantCalendar> calendars = new ConcurrentHashMap<>();
+
+    private final class TenantCalendar {
+        final Tenant tenant;
+        final String calendarId;
+        final ZoneId zone;
+        final BusyIndex index;
+        final ReentrantLock syncLock = new ReentrantLock();
+        final Calendar client;
+
+        TenantCalendar(Tenant tenant) {
+            this.tenant = tenant;
+            this.calendarId = tenant.calendarId();
+            this.zone = tenant.zone();
+            this.index = new BusyIndex(zone, new BusyIndex.Listener() {
+                @Override
+                public void changed(LocalDate day) {
+                    versions.changed(tenant.id(), day);
+                }
 
-            this.calendarClient = new Calendar.Builder(GoogleNetHttpTransport.newTrustedTransport(),JacksonFactory.getDefaultInstance(),credential).setApplicationName("Goomar App").build();
+                @Override
+                public void changedAll() {
+                    versions.changedAll(tenant.id());
+                }
+            });
+            this.client = new Calendar.Builder(googleHttp.getTransport(), JacksonFactory.getDefaultInstance(),
+                    googleHttp.initializer(credentials.initializer(tenant.credentialUser()))).setApplicationName("Goomar App").build();
+        }
 
-            log.info("✅ Google Calendar client initialized successfully.");
+        long toEpochMilli(LocalDateTime dateTime) {
+            return dateTime.atZone(zone).toInstant().toEpochMilli();
         }
 
-        if (credential.getExpiresInSeconds() != null && credential.getExpiresInSeconds() < 60) {
-            if (credential.refreshToken()) {
-                log.info("🔄 Calendar access token refreshed successfully.");
-            } else {
-                log.warn("⚠️ Calendar token refresh failed. User reauthorization may be required.");
+        /** A fixed offset unless the zone changes its offset during {@code date}; then minute by minute. */
+        DayClock clock(LocalDate date) {
+            ZonedDateTime midnight = date.atStartOfDay(zone);
+            ZoneRules rules = zone.getRules();
+            ZoneOffsetTransition transition = rules.nextTransition(midnight.toInstant());
+            if (transition == null || !transition.getDateTimeBefore().toLocalDate().equals(date)) {
+                return DayClock.fixed(date.atStartOfDay().toEpochSecond(midnight.getOffset()) / 60);
             }
+            return minuteOfDay -> {
+                LocalDateTime local = date.atStartOfDay().plusMinutes(minuteOfDay);
+                List<ZoneOffset> offsets = rules.getValidOffsets(local);
+                return offsets.isEmpty() ? DayClock.SKIPPED : local.toEpochSecond(offsets.get(0)) / 60;
+            };
         }
     }
 
-    private <T> T executeWithRetry(java.util.concurrent.Callable<T> call) throws Exception {
+    @PostConstruct
+    void init() {
+        bus.subscribe(CALENDAR_CHANGED, key -> {
+            String[] origin = key == null ? new String[0] : key.split("/", 2);
+            if (origin.length == 2 && bus.instance().equals(origin[0])) return;
+            Tenant tenant = origin.length == 2 ? tenants.get(origin[1]) : null;
+            if (tenant != null) {
+                Thread.ofVirtual().name("calendar-sync").start(() -> TenantContext.run(tenant, this::syncIndexNow));
+            } else if (origin.length < 2) {
+                Thread.ofVirtual().name("calendar-sync").start(() -> tenants.all().forEach(t -> TenantContext.run(t, this::syncIndexNow)));
+            }
+        });
+    }
+
+    /** The calendar of the current tenant; rebuilt when the tenant's configuration changed. */
+    private TenantCalendar calendar() {
+        Tenant tenant = TenantContext.current();
+        TenantCalendar calendar = calendars.get(tenant.id());
+        if (calendar != null && calendar.tenant.equals(tenant)) return calendar;
+        return calendars.compute(tenant.id(), (id, c) -> c != null && c.tenant.equals(tenant) ? c : new TenantCalendar(tenant));
+    }
+
+    private <T> T executeWithRetry(String op, java.util.concurrent.Callable<T> call) throws Exception {
+        String user = TenantContext.current().credentialUser();
         try {
-            return call.call();
+            return guard.call(API, () -> metrics.record(API, op, call));
         } catch (GoogleJsonResponseException e) {
             if (e.getStatusCode() == 401) {
-                log.warn("401 from Calendar API during {}. Attempting token refresh...");
-                if (credential != null && credential.refreshToken()) {
-                    return call.call();
-                }
-                log.warn("Refresh failed. Reloading credential and rebuilding client...");
-                Credential reloaded = flow.loadCredential("user");
-                if (reloaded != null) {
-                    this.credential = reloaded;
-                    this.calendarClient = new Calendar.Builder(GoogleNetHttpTransport.newTrustedTransport(),JacksonFactory.getDefaultInstance(),credential).setApplicationName("Goomar App").build();
-                    return call.call();
-                }
-                throw new IllegalStateException("Google authorization expired. Please re-authorize via /google/auth");
+                log.warn("401 from Calendar API during {}. Forcing token refresh...", op);
+                metrics.unauthorizedRetry(API, op);
+                credentials.refreshAfterUnauthorized(user);
+                return guard.call(API, () -> metrics.record(API, op, call));
             }
             throw e;
         }
@@ -81,108 +161,330 @@ public class CalendarService implements ICalendarService {
     @SneakyThrows
     @Override
     public String insertAppointment(ReservationRest rr) {
-        ensureCalendarReady();
-
         log.info("insertAppointment(rr={})", rr);
+        TenantCalendar c = calendar();
+        ZoneId zone = c.zone;
 
         ZonedDateTime startZoned = rr.getDateTime().atZone(zone);
-        ZonedDateTime endZoned = startZoned.plusMinutes(rr.getLong() ? 30 : 15);
+        ZonedDateTime endZoned = startZoned.plusMinutes(workingHours.current().minutes(rr.getLong()));
 
-        Event event = new Event().setSummary(rr.getName() + " " + rr.getPhone()).setColorId("5").setStart(new EventDateTime().setDateTime(new DateTime(startZoned.toInstant().toEpochMilli()))
+        Event event = new Event().setId(rr.getId() == null ? null : eventId(rr.getId())).setSummary(rr.getName() + " " + rr.getPhone()).setColorId(COLOR_PENDING).setStart(new EventDateTime().setDateTime(new DateTime(startZoned.toInstant().toEpochMilli()))
                         .setTimeZone(zone.getId())).setEnd(new EventDateTime().setDateTime(new DateTime(endZoned.toInstant().toEpochMilli())).setTimeZone(zone.getId()));
 
-        Event created = executeWithRetry(() -> calendarClient.events().insert(calendarId, event).execute());
-        log.info("📅 Event created: {} ({} at {})", created.getId(), created.getSummary(), created.getStart());
+        Event created;
+        try {
+            created = executeWithRetry("events.insert", () -> c.client.events().insert(c.calendarId, event).setFields(EVENT_FIELDS).execute());
+        } catch (GoogleJsonResponseException e) {
+            if (e.getStatusCode() != 409 || event.getId() == null) throw e;
+            log.info("Event {} already exists, an earlier insert went through", event.getId());
+            created = executeWithRetry("events.get", () -> c.client.events().get(c.calendarId, event.getId()).setFields(EVENT_FIELDS).execute());
+        }
+        c.index.apply(created);
+        announce();
+        log.info("📅 Event created: {} ({} at {})", created.getId(), event.getSummary(), created.getStart());
         return created.getId();
     }
 
+    /**
+     * False when a busy period other than the reservation's own event comes closer to its slot than the free slots
+     * allow (buffer and touch margin). Days the index holds are answered from it, however old; other days (beyond the
+     * horizon, before the first sync, index disabled) are checked with a live events.list. When Google is unavailable
+     * those days count as free, so confirmation keeps working through an outage.
+     */
     @SneakyThrows
     @Override
-    public boolean slotFree(LocalDateTime dateTime, boolean _long) {
-        return getEvents(dateTime, dateTime.plus(Duration.ofMinutes(_long?30:15))).isEmpty();
+    public boolean slotFree(ReservationRest rr) {
+        TenantCalendar c = calendar();
+        WorkingHours hours = workingHours.current();
+        LocalDateTime from = rr.getDateTime().minusMinutes(hours.margin());
+        LocalDateTime to = rr.getDateTime().plusMinutes(hours.minutes(rr.getLong()) + hours.margin());
+        Set<String> own = new HashSet<>(Arrays.asList(eventId(rr.getId()), rr.getEventId()));
+        boolean indexed = indexEnabled;
+        for (LocalDate day = from.toLocalDate(); !day.isAfter(to.toLocalDate()); day = day.plusDays(1)) {
+            if (!indexed || !c.index.holds(day)) {
+                indexed = false;
+                continue;
+            }
+            for (BusyIndex.Busy busy : c.index.busy(day, c.toEpochMilli(from), c.toEpochMilli(to))) {
+                if (!busy.allDay() && !own.contains(busy.eventId())) return false;
+            }
+        }
+        if (indexed) return true;
+
+        List<Event> events;
+        try {
+            events = getEvents(c, from, to);
+        } catch (Exception e) {
+            if (!GoogleGuard.isUnavailable(e)) throw e;
+            log.warn("Calendar unavailable ({}), slot {} checked against the busy index only", e.getClass().getSimpleName(), rr.getDateTime());
+            return true;
+        }
+        for (Event event : events) {
+            if (event.getStart() == null || event.getEnd() == null || own.contains(event.getId())) continue;
+            if (event.getStart().getDateTime() != null && event.getEnd().getDateTime() != null) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public String availabilityVersion(LocalDate date) {
+        TenantCalendar c = calendar();
+        return indexEnabled && c.index.covers(date, indexMaxStaleness) ? versions.version(c.tenant.id(), date) : null;
+    }
+
+    @Override
+    public ZoneId zone() {
+        return TenantContext.current().zone();
+    }
+
+    @Override
+    public List<BusyIndex.Busy> indexedEvents(LocalDate day) {
+        TenantCalendar c = calendar();
+        if (!indexEnabled || !c.index.covers(day, indexMaxStaleness)) return null;
+        return c.index.busy(day, c.toEpochMilli(day.atStartOfDay()), c.toEpochMilli(day.plusDays(1).atStartOfDay()));
+    }
+
+    @Override
+    public BusyIndex.Busy indexedEvent(String eventId) {
+        return calendar().index.get(eventId);
     }
 
     @SneakyThrows
     @Override
     public List<FreeSlotRest> getFreeSlots(LocalDate date, boolean longService) {
-        ensureCalendarReady();
         log.info("getFreeSlots(date={}, longService={})", date, longService);
+        TenantCalendar c = calendar();
+        return freeSlots(c, workingHours.current(), date, getBusyPeriods(c, date, date).get(date), longService);
+    }
 
-        LocalDateTime startOfDay = date.atTime(8, 0);
-        LocalDateTime endOfDay = date.atTime(16, 0);
-        List<Event> events = getEvents(startOfDay, endOfDay);
+    @SneakyThrows
+    @Override
+    public Map<LocalDate, List<FreeSlotRest>> getFreeSlots(LocalDate from, LocalDate to, boolean longService) {
+        if (to.isBefore(from) || from.plusDays(maxRangeDays).isBefore(to)) {
+            throw new IllegalArgumentException("Invalid free slot range " + from + " - " + to + " (max " + maxRangeDays + " days)");
+        }
+        log.info("getFreeSlots(from={}, to={}, longService={})", from, to, longService);
 
-        List<TimePeriod> busyPeriods = new ArrayList<>();
-        for (Event event : events) {
-            if (event.getStart() == null || event.getEnd() == null) continue;
-            if (event.getStart().getDate() != null || event.getEnd().getDate() != null) continue;
+        TenantCalendar c = calendar();
+        WorkingHours hours = workingHours.current();
+        Map<LocalDate, BusyIntervals> busyByDay = getBusyPeriods(c, from, to);
+        Map<LocalDate, List<FreeSlotRest>> result = new LinkedHashMap<>();
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            result.put(day, freeSlots(c, hours, day, busyByDay.get(day), longService));
+        }
+        return result;
+    }
 
-            DateTime startDt = event.getStart().getDateTime();
-            DateTime endDt = event.getEnd().getDateTime();
-            if (startDt == null || endDt == null) continue;
+    private List<FreeSlotRest> freeSlots(TenantCalendar c, WorkingHours hours, LocalDate date, BusyIntervals busy, boolean longService) {
+        DayTemplate day = hours.day(date, longService);
+        int[] starts = new int[day.size()];
+        int count = SlotEngine.freeSlots(day, c.clock(date), hours.margin(), busy, starts);
 
-            busyPeriods.add(new TimePeriod().setStart(startDt).setEnd(endDt));
+        List<FreeSlotRest> freeSlots = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            freeSlots.add(new FreeSlotRest().start(SlotEngine.label(starts[i])).end(SlotEngine.label(starts[i] + day.slotLength())));
         }
+        return freeSlots;
+    }
 
-        ZonedDateTime lunchStart = date.atTime(12, 0).atZone(zone);
-        ZonedDateTime lunchEnd = date.atTime(13, 0).atZone(zone);
-        busyPeriods.add(new TimePeriod().setStart(new DateTime(lunchStart.toInstant().toEpochMilli())).setEnd(new DateTime(lunchEnd.toInstant().toEpochMilli())));
+    /**
+     * Busy periods of every day of {@code [from, to]}, served from the index when it covers
+     * the range and otherwise from a single events.list over the whole range.
+     */
+    private Map<LocalDate, BusyIntervals> getBusyPeriods(TenantCalendar c, LocalDate from, LocalDate to) throws Exception {
+        Map<LocalDate, BusyIntervals> busyByDay = new HashMap<>();
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            busyByDay.put(day, new BusyIntervals());
+        }
 
-        busyPeriods.sort(Comparator.comparingLong(tp -> tp.getStart().getValue()));
+        if (indexEnabled && c.index.covers(from, indexMaxStaleness) && c.index.covers(to, indexMaxStaleness)) {
+            return indexBusyPeriods(c, from, to, busyByDay);
+        }
 
-        List<FreeSlotRest> freeSlots = new ArrayList<>();
-        ZonedDateTime cursor = startOfDay.atZone(zone);
-        Duration slotLength = Duration.ofMinutes(longService ? 30 : 15);
-        ZonedDateTime zonedEndOfDay = endOfDay.atZone(zone);
-        while (!cursor.plus(slotLength).isAfter(zonedEndOfDay)) {
-            boolean result = true;
-            ZonedDateTime slotEnd = cursor.plus(slotLength);
+        log.info("Busy index does not cover {} - {}, querying calendar", from, to);
+        List<Event> events;
+        try {
+            events = getEvents(c, from.atStartOfDay(), to.plusDays(1).atStartOfDay());
+        } catch (Exception e) {
+            if (!GoogleGuard.isUnavailable(e) || !c.index.holds(from) || !c.index.holds(to)) throw e;
+            log.warn("Calendar unavailable ({}), serving {} - {} from the last known busy index", e.getClass().getSimpleName(), from, to);
+            return indexBusyPeriods(c, from, to, busyByDay);
+        }
+        for (Event event : events) {
+            if (event.getStart() == null || event.getEnd() == null) continue;
+            if (event.getStart().getDate() != null || event.getEnd().getDate() != null) continue;
 
-            for (TimePeriod busy : busyPeriods) {
-                ZonedDateTime busyStart = Instant.ofEpochMilli(busy.getStart().getValue()).atZone(cursor.getZone());
-                ZonedDateTime busyEnd = Instant.ofEpochMilli(busy.getEnd().getValue()).atZone(cursor.getZone());
+            DateTime startDt = event.getStart().getDateTime();
+            DateTime endDt = event.getEnd().getDateTime();
+            if (startDt == null || endDt == null) continue;
 
-                if (!slotEnd.isBefore(busyStart) && !cursor.isAfter(busyEnd)) {
-                    result = false;
-                    break;
+            LocalDate first = Instant.ofEpochMilli(startDt.getValue()).atZone(c.zone).toLocalDate();
+            LocalDate last = Instant.ofEpochMilli(endDt.getValue() - 1).atZone(c.zone).toLocalDate();
+            for (LocalDate day = first.isBefore(from) ? from : first; !day.isAfter(last) && !day.isAfter(to); day = day.plusDays(1)) {
+                if (startDt.getValue() < c.toEpochMilli(day.plusDays(1).atStartOfDay()) && endDt.getValue() > c.toEpochMilli(day.atStartOfDay())) {
+                    busyByDay.get(day).addMillis(startDt.getValue(), endDt.getValue());
                 }
             }
-            if (result) {
-                freeSlots.add(new FreeSlotRest().start(cursor.toLocalTime().toString()).end(cursor.plus(slotLength).toLocalTime().toString()));
+        }
+        return busyByDay;
+    }
+
+    private Map<LocalDate, BusyIntervals> indexBusyPeriods(TenantCalendar c, LocalDate from, LocalDate to, Map<LocalDate, BusyIntervals> busyByDay) {
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            for (BusyIndex.Busy busy : c.index.busy(day, c.toEpochMilli(day.atStartOfDay()), c.toEpochMilli(day.plusDays(1).atStartOfDay()))) {
+                if (busy.allDay()) continue;
+                busyByDay.get(day).addMillis(busy.start(), busy.end());
             }
-            cursor = cursor.plus(slotLength);
         }
-        return freeSlots;
+        return busyByDay;
     }
 
-    private List<Event> getEvents(LocalDateTime startOfDay, LocalDateTime endOfDay) throws Exception {
-        DateTime tMin = new DateTime(startOfDay.atZone(zone).toInstant().toEpochMilli());
-        DateTime tMax = new DateTime(endOfDay.atZone(zone).toInstant().toEpochMilli());
+    private List<Event> getEvents(TenantCalendar c, LocalDateTime startOfDay, LocalDateTime endOfDay) throws Exception {
+        DateTime tMin = new DateTime(c.toEpochMilli(startOfDay));
+        DateTime tMax = new DateTime(c.toEpochMilli(endOfDay));
 
-        List<Event> events = executeWithRetry(() ->calendarClient.events().list(calendarId).setTimeMin(tMin).setTimeMax(tMax)
-                .setOrderBy("startTime").setShowDeleted(false).setSingleEvents(true).execute()).getItems();
+        List<Event> events = new ArrayList<>();
+        String pageToken = null;
+        do {
+            final String token = pageToken;
+            Events page = executeWithRetry("events.list", () -> c.client.events().list(c.calendarId).setTimeMin(tMin).setTimeMax(tMax)
+                    .setShowDeleted(false).setSingleEvents(true).setMaxResults(2500).setPageToken(token).setFields(SLOT_PAGE_FIELDS).execute());
+            if (page.getItems() != null) events.addAll(page.getItems());
+            pageToken = page.getNextPageToken();
+        } while (pageToken != null);
         return events;
     }
 
-    @SneakyThrows
     @Override
     public void confirmAppointment(String eventId) {
-        ensureCalendarReady();
         log.info("confirmAppointment(eventId={})", eventId);
-        Event event = executeWithRetry(() -> calendarClient.events().get(calendarId, eventId).execute());
-        log.info("Event: {}", event);
-        event.setColorId("10");
-        executeWithRetry(() -> calendarClient.events().update(calendarId, event.getId(), event).execute());
+        patch(eventId, new Event().setColorId(COLOR_CONFIRMED));
     }
 
+    @SneakyThrows
     @Override
     public void deleteAppointment(String eventId) {
-        ensureCalendarReady();
         log.info("deleteAppointment(eventId={})", eventId);
+        TenantCalendar c = calendar();
+        try {
+            executeWithRetry("events.delete", () -> c.client.events().delete(c.calendarId, eventId).execute());
+        } catch (GoogleJsonResponseException e) {
+            if (e.getStatusCode() != 404 && e.getStatusCode() != 410) throw e;
+            log.info("Event {} already deleted", eventId);
+        }
+        c.index.remove(eventId);
+        announce();
+    }
+
+    @Override
+    public void restoreAppointment(String eventId) {
+        log.info("restoreAppointment(eventId={})", eventId);
+        patch(eventId, new Event().setStatus("confirmed"));
+    }
+
+    @SneakyThrows
+    private void patch(String eventId, Event patch) {
+        TenantCalendar c = calendar();
+        c.index.apply(executeWithRetry("events.patch", () -> c.client.events().patch(c.calendarId, eventId, patch).setFields(EVENT_FIELDS).execute()));
+        announce();
+    }
+
+    /** Lets the other replicas pull our calendar write into their busy index now instead of on their next sync. */
+    private void announce() {
+        try {
+            bus.publish(CALENDAR_CHANGED, bus.instance() + "/" + TenantContext.currentId());
+        } catch (RuntimeException e) {
+            log.warn("Calendar change not announced: {}", e.getMessage());
+        }
+    }
+
+    /** Event id derived from the reservation, so a retried insert hits 409 instead of creating a duplicate (base32hex, 32 chars). */
+    static String eventId(UUID entryId) {
+        return entryId.toString().replace("-", "");
+    }
+
+    /** Syncs the busy index of every tenant, one after the other; calendars of removed tenants are dropped. */
+    @Scheduled(fixedDelayString = "${goomar.calendar.index.syncInterval:PT30S}", initialDelayString = "PT10S")
+    public void syncIndex() {
+        if (!indexEnabled) return;
+        calendars.values().removeIf(c -> tenants.get(c.tenant.id()) == null);
+        for (Tenant tenant : tenants.all()) {
+            TenantContext.run(tenant, () -> {
+                TenantCalendar c = calendar();
+                if (!credentials.isAuthorized(tenant.credentialUser()) || !c.syncLock.tryLock()) return;
+                sync(c);
+            });
+        }
+    }
+
+    /** Sync on request of another replica; waits for a running sync, which may have started before the change. */
+    private void syncIndexNow() {
+        if (!indexEnabled || !credentials.isAuthorized(TenantContext.current().credentialUser())) return;
+        TenantCalendar c = calendar();
+        c.syncLock.lock();
+        sync(c);
+    }
+
+    /** Runs with {@code syncLock} held and releases it. */
+    private void sync(TenantCalendar c) {
         try {
-            executeWithRetry(() -> calendarClient.events().delete(calendarId, eventId).execute());
+            if (c.index.needsRebuild(LocalDate.now(c.zone), indexHorizonDays)) {
+                fullSync(c);
+            } else {
+                incrementalSync(c);
+            }
         } catch (Exception e) {
-            log.warn("Failed to delete event {}: {}", eventId, e.getMessage());
+            log.warn("Busy index sync of {} failed: {}", c.tenant.id(), e.getMessage());
+        } finally {
+            c.syncLock.unlock();
         }
     }
+
+    private void fullSync(TenantCalendar c) throws Exception {
+        LocalDate from = LocalDate.now(c.zone).minusDays(1);
+        LocalDate to = from.plusDays(indexHorizonDays);
+        DateTime tMin = new DateTime(c.toEpochMilli(from.atStartOfDay()));
+        DateTime tMax = new DateTime(c.toEpochMilli(to.plusDays(1).atStartOfDay()));
+
+        List<Event> events = new ArrayList<>();
+        String pageToken = null;
+        Events page;
+        do {
+            final String token = pageToken;
+            page = executeWithRetry("events.list.full", () -> c.client.events().list(c.calendarId).setTimeMin(tMin).setTimeMax(tMax)
+                    .setSingleEvents(true).setMaxResults(2500).setPageToken(token).setFields(SYNC_PAGE_FIELDS).execute());
+            if (page.getItems() != null) events.addAll(page.getItems());
+            pageToken = page.getNextPageToken();
+        } while (pageToken != null);
+
+        c.index.reset(from, to, events, page.getNextSyncToken());
+        log.info("📅 Busy index of {} rebuilt: {} events between {} and {}", c.tenant.id(), events.size(), from, to);
+    }
+
+    private void incrementalSync(TenantCalendar c) throws Exception {
+        final String syncToken = c.index.syncToken();
+        String pageToken = null;
+        Events page;
+        int changes = 0;
+        do {
+            final String token = pageToken;
+            try {
+                page = executeWithRetry("events.list.sync", () -> c.client.events().list(c.calendarId).setSyncToken(syncToken)
+                        .setSingleEvents(true).setMaxResults(2500).setPageToken(token).setFields(SYNC_PAGE_FIELDS).execute());
+            } catch (GoogleJsonResponseException e) {
+                if (e.getStatusCode() != 410) throw e;
+                log.info("Calendar sync token expired, rebuilding busy index");
+                c.index.invalidate();
+                fullSync(c);
+                return;
+            }
+            List<Event> items = page.getItems() == null ? List.of() : page.getItems();
+            items.forEach(c.index::apply);
+            changes += items.size();
+            pageToken = page.getNextPageToken();
+        } while (pageToken != null);
+
+        c.index.synced(page.getNextSyncToken());
+        if (changes > 0) log.info("📅 Busy index of {} applied {} calendar changes", c.tenant.id(), changes);
+    }
 }
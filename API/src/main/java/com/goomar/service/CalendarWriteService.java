@@ -0,0 +1,210 @@
+package com.goomar.service;
+
+import com.goomar.tenant.Tenant;
+import com.goomar.tenant.TenantContext;
+import com.goomar.tenant.TenantRegistry;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.jooq.DSLContext;
+import org.jooq.exception.NoDataFoundException;
+import org.jooq.generated.tables.records.CalendarOutboxRecord;
+import org.openapitools.model.ReservationRest;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.jooq.generated.tables.CalendarOutbox.CALENDAR_OUTBOX;
+import static org.jooq.impl.DSL.select;
+
+/**
+ * Calendar writes of the reservation flow. A write is queued in {@code calendar_outbox} inside the caller's transaction
+ * and, once that has committed, runs right away on a virtual thread; no database connection or entries row lock waits
+ * on Google, and a rollback leaves nothing in Google to undo. A write that fails (breaker open, bulkhead full, timeout,
+ * 5xx) is retried by {@link #drain()} with backoff, so a Google outage does not fail the booking. Inserts are
+ * idempotent through the event id {@link CalendarService} derives from the reservation. Queued writes run for the
+ * tenant that made the change.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CalendarWriteService implements ICalendarWriteService, DisposableBean {
+
+    static final String OP_INSERT = "INSERT";
+    static final String OP_CONFIRM = "CONFIRM";
+    static final String OP_DELETE = "DELETE";
+
+    static final String STATUS_PENDING = "PENDING";
+    static final String STATUS_DONE = "DONE";
+    static final String STATUS_DEAD = "DEAD";
+
+    private final DSLContext ctx;
+    private final ICalendarService calendarService;
+    private final IEntryService entryService;
+    private final MeterRegistry registry;
+    private final TenantRegistry tenants;
+    private final ExecutorService writes = Executors.newVirtualThreadPerTaskExecutor();
+
+    @Value("${goomar.calendar.outbox.batchSize:20}")
+    private int batchSize;
+
+    @Value("${goomar.calendar.outbox.maxAttempts:20}")
+    private int maxAttempts;
+
+    @Value("${goomar.calendar.outbox.backoff:PT30S}")
+    private Duration backoff;
+
+    @Value("${goomar.calendar.outbox.maxBackoff:PT30M}")
+    private Duration maxBackoff;
+
+    @Value("${goomar.calendar.outbox.lease:PT5M}")
+    private Duration lease;
+
+    /** Pending writes as of the last {@link #drain()}, so scrapes never query the database. */
+    private final AtomicLong pending = new AtomicLong();
+
+    @PostConstruct
+    void init() {
+        Gauge.builder("calendar.outbox.pending", pending, AtomicLong::get)
+                .description("Calendar writes waiting for Google").register(registry);
+    }
+
+    @Override
+    public void destroy() {
+        writes.close();
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void insertAppointment(ReservationRest rr) {
+        enqueue(OP_INSERT, rr.getId(), null);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void confirmAppointment(ReservationRest rr) {
+        enqueue(OP_CONFIRM, rr.getId(), rr.getEventId());
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void deleteAppointment(ReservationRest rr) {
+        if (rr.getEventId() != null) enqueue(OP_DELETE, rr.getId(), rr.getEventId());
+    }
+
+    @Override
+    public Set<UUID> pendingEntries() {
+        return Set.copyOf(ctx.selectDistinct(CALENDAR_OUTBOX.ENTRY_ID).from(CALENDAR_OUTBOX)
+                .where(CALENDAR_OUTBOX.STATUS.eq(STATUS_PENDING)).and(CALENDAR_OUTBOX.TENANT_ID.eq(TenantContext.currentId()))
+                .and(CALENDAR_OUTBOX.ENTRY_ID.isNotNull()).fetch(CALENDAR_OUTBOX.ENTRY_ID));
+    }
+
+    @Scheduled(fixedDelayString = "${goomar.calendar.outbox.pollInterval:PT30S}", initialDelayString = "PT20S")
+    public void drain() {
+        claim().forEach(this::process);
+        pending.set(ctx.fetchCount(CALENDAR_OUTBOX, CALENDAR_OUTBOX.STATUS.eq(STATUS_PENDING)));
+    }
+
+    private void process(CalendarOutboxRecord write) {
+        try {
+            Tenant tenant = tenants.get(write.getTenantId());
+            if (tenant == null) throw new IllegalStateException("Unknown tenant " + write.getTenantId());
+            TenantContext.run(tenant, () -> execute(write));
+            ctx.update(CALENDAR_OUTBOX).set(CALENDAR_OUTBOX.STATUS, STATUS_DONE).set(CALENDAR_OUTBOX.DONE_AT, OffsetDateTime.now())
+                    .setNull(CALENDAR_OUTBOX.LAST_ERROR).where(CALENDAR_OUTBOX.ID.eq(write.getId())).execute();
+            log.info("📅 Calendar {} of entry {} done", write.getOp(), write.getEntryId());
+        } catch (Exception e) {
+            failed(write, e.getClass().getSimpleName() + ": " + e.getMessage());
+        }
+    }
+
+    private void execute(CalendarOutboxRecord write) {
+        switch (write.getOp()) {
+            case OP_INSERT -> {
+                ReservationRest rr;
+                try {
+                    rr = entryService.get(write.getEntryId().toString());
+                } catch (NoDataFoundException e) {
+                    log.info("Entry {} deleted before its event was created", write.getEntryId());
+                    return;
+                }
+                if (rr.getEventId() == null) entryService.setEventId(rr.getId().toString(), calendarService.insertAppointment(rr));
+            }
+            case OP_CONFIRM -> {
+                String eventId = write.getEventId() != null ? write.getEventId() : entryService.get(write.getEntryId().toString()).getEventId();
+                if (eventId == null) throw new IllegalStateException("event of entry " + write.getEntryId() + " not created yet");
+                calendarService.confirmAppointment(eventId);
+            }
+            case OP_DELETE -> calendarService.deleteAppointment(write.getEventId());
+            default -> throw new IllegalStateException("Unknown calendar write " + write.getOp());
+        }
+    }
+
+    /** Queues the write in the caller's transaction and runs it as soon as that commits. */
+    private void enqueue(String op, UUID entryId, String eventId) {
+        Long id = ctx.insertInto(CALENDAR_OUTBOX, CALENDAR_OUTBOX.TENANT_ID, CALENDAR_OUTBOX.OP, CALENDAR_OUTBOX.ENTRY_ID, CALENDAR_OUTBOX.EVENT_ID)
+                .values(TenantContext.currentId(), op, entryId, eventId).returningResult(CALENDAR_OUTBOX.ID).fetchOne(CALENDAR_OUTBOX.ID);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                writes.execute(() -> runNow(id));
+            }
+        });
+    }
+
+    /** First attempt of a just committed write, unless {@link #drain()} has claimed it already. */
+    private void runNow(long id) {
+        try {
+            CalendarOutboxRecord write = ctx.update(CALENDAR_OUTBOX)
+                    .set(CALENDAR_OUTBOX.ATTEMPTS, CALENDAR_OUTBOX.ATTEMPTS.plus(1))
+                    .set(CALENDAR_OUTBOX.NEXT_ATTEMPT_AT, OffsetDateTime.now().plus(lease))
+                    .where(CALENDAR_OUTBOX.ID.eq(id)).and(CALENDAR_OUTBOX.STATUS.eq(STATUS_PENDING)).and(CALENDAR_OUTBOX.ATTEMPTS.eq(0))
+                    .returning().fetchOne();
+            if (write != null) process(write);
+        } catch (Exception e) {
+            log.warn("Calendar write {} left to the outbox drain: {}", id, e.getMessage());
+        }
+    }
+
+    private List<CalendarOutboxRecord> claim() {
+        OffsetDateTime now = OffsetDateTime.now();
+        return ctx.update(CALENDAR_OUTBOX)
+                .set(CALENDAR_OUTBOX.ATTEMPTS, CALENDAR_OUTBOX.ATTEMPTS.plus(1))
+                .set(CALENDAR_OUTBOX.NEXT_ATTEMPT_AT, now.plus(lease))
+                .where(CALENDAR_OUTBOX.ID.in(select(CALENDAR_OUTBOX.ID).from(CALENDAR_OUTBOX)
+                        .where(CALENDAR_OUTBOX.STATUS.eq(STATUS_PENDING)).and(CALENDAR_OUTBOX.NEXT_ATTEMPT_AT.le(now))
+                        .orderBy(CALENDAR_OUTBOX.ID).limit(batchSize).forUpdate().skipLocked()))
+                .returning().fetch()
+                .sortAsc(CALENDAR_OUTBOX.ID);
+    }
+
+    private void failed(CalendarOutboxRecord write, String error) {
+        if (write.getAttempts() >= maxAttempts) {
+            log.error("☠️ Calendar {} of entry {} dead after {} attempts: {}", write.getOp(), write.getEntryId(), write.getAttempts(), error);
+            ctx.update(CALENDAR_OUTBOX).set(CALENDAR_OUTBOX.STATUS, STATUS_DEAD).set(CALENDAR_OUTBOX.LAST_ERROR, error)
+                    .where(CALENDAR_OUTBOX.ID.eq(write.getId())).execute();
+            return;
+        }
+        Duration delay = backoff.multipliedBy(1L << Math.min(write.getAttempts() - 1, 20));
+        if (delay.compareTo(maxBackoff) > 0) delay = maxBackoff;
+        log.warn("Calendar {} of entry {} failed, attempt {}/{}, retry in {}: {}", write.getOp(), write.getEntryId(), write.getAttempts(), maxAttempts, delay, error);
+        ctx.update(CALENDAR_OUTBOX).set(CALENDAR_OUTBOX.NEXT_ATTEMPT_AT, OffsetDateTime.now().plus(delay)).set(CALENDAR_OUTBOX.LAST_ERROR, error)
+                .where(CALENDAR_OUTBOX.ID.eq(write.getId())).execute();
+    }
+}
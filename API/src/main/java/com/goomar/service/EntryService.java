@@ -1,12 +1,20 @@
 package com.goomar.service;
 
+import com.goomar.tenant.TenantContext;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.jooq.Condition;
+import org.jooq.Cursor;
 import org.jooq.DSLContext;
+import org.jooq.Record1;
+import org.jooq.Record10;
+import org.jooq.RecordMapper;
+import org.jooq.SelectSelectStep;
 import org.jooq.impl.DSL;
 import org.openapitools.model.ReservationRest;
 import org.openapitools.model.UpdateReservationRest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -14,20 +22,33 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 import static org.jooq.generated.tables.Entries.ENTRIES;
 
+/** Reservations of the current tenant ({@link TenantContext}); every statement is scoped to its {@code tenant_id}. */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class EntryService implements IEntryService {
+    private static final RecordMapper<Record10<UUID, String, LocalDateTime, String, String, String, Boolean, Boolean, String, Boolean>, ReservationRest> RESERVATION =
+            r -> new ReservationRest().id(r.value1()).name(r.value2()).dateTime(r.value3()).email(r.value4()).phone(r.value5())
+                    .registration(r.value6())._long(r.value7()).confirmed(r.value8()).eventId(r.value9()).emailOk(r.value10());
+
     final DSLContext ctx;
+    final AvailabilityVersions versions;
+    final WorkingHoursRegistry workingHours;
+
+    @Value("${goomar.reservations.fetchSize:200}")
+    private int fetchSize;
 
     @Override
     public UUID insertReservation(ReservationRest rr) {
         log.info(">>insertReservation(id={})", rr);
-        return ctx.insertInto(ENTRIES, ENTRIES.DATE_TIME, ENTRIES.NAME, ENTRIES.PHONE, ENTRIES.EMAIL, ENTRIES.REGISTRATION, ENTRIES.LONG, ENTRIES.CONFIRMED, ENTRIES.EMAIL_OK)
-                .values(rr.getDateTime(), rr.getName(), rr.getPhone(), rr.getEmail(), rr.getRegistration(), rr.getLong(), false, false).returningResult(ENTRIES.ID).fetchOne().value1();
+        versions.changed(TenantContext.currentId(), rr.getDateTime().toLocalDate());
+        return ctx.insertInto(ENTRIES, ENTRIES.TENANT_ID, ENTRIES.DATE_TIME, ENTRIES.NAME, ENTRIES.PHONE, ENTRIES.EMAIL, ENTRIES.REGISTRATION, ENTRIES.LONG, ENTRIES.MINUTES, ENTRIES.CONFIRMED, ENTRIES.EMAIL_OK)
+                .values(TenantContext.currentId(), rr.getDateTime(), rr.getName(), rr.getPhone(), rr.getEmail(), rr.getRegistration(), rr.getLong(),
+                        (short) workingHours.current().minutes(rr.getLong()), false, false).returningResult(ENTRIES.ID).fetchOne().value1();
     }
 
 
@@ -38,55 +59,124 @@ public class EntryService implements IEntryService {
         LocalDateTime startOfWeek = date.atStartOfDay();
         LocalDateTime endOfWeek = date.plusDays(5).atStartOfDay();
 
-        Condition dateRange = ENTRIES.DATE_TIME.ge(startOfWeek).and(ENTRIES.DATE_TIME.lt(endOfWeek));
+        Condition dateRange = tenant().and(ENTRIES.DATE_TIME.ge(startOfWeek)).and(ENTRIES.DATE_TIME.lt(endOfWeek));
 
-        return ctx.select(ENTRIES.ID, ENTRIES.NAME, ENTRIES.DATE_TIME, ENTRIES.EMAIL, ENTRIES.PHONE, ENTRIES.REGISTRATION,
-                        ENTRIES.LONG, ENTRIES.EMAIL, ENTRIES.CONFIRMED, ENTRIES.EVENT_ID, ENTRIES.CONFIRMED, ENTRIES.EMAIL_OK)
+        return selectReservation()
                 .from(ENTRIES)
                 .where(dateRange)
                 .orderBy(ENTRIES.DATE_TIME.asc())
-                .fetchInto(ReservationRest.class);
+                .fetch(RESERVATION);
+    }
+
+    /**
+     * Streams one keyset page of {@code [from, to]} ordered by {@code (date_time, id)} into {@code sink} straight off a
+     * server-side cursor, and returns the position to continue from, or {@code null} on the last page.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Keyset streamReservations(LocalDate from, LocalDate to, Keyset after, int limit, Consumer<ReservationRest> sink) {
+        log.info(">>streamReservations(from={}, to={}, after={}, limit={})", from, to, after, limit);
+        Condition condition = tenant().and(ENTRIES.DATE_TIME.ge(from.atStartOfDay())).and(ENTRIES.DATE_TIME.lt(to.plusDays(1).atStartOfDay()));
+        if (after != null) {
+            condition = condition.and(DSL.row(ENTRIES.DATE_TIME, ENTRIES.ID).gt(after.dateTime(), after.id()));
+        }
+
+        try (Cursor<Record10<UUID, String, LocalDateTime, String, String, String, Boolean, Boolean, String, Boolean>> cursor = selectReservation()
+                .from(ENTRIES)
+                .where(condition)
+                .orderBy(ENTRIES.DATE_TIME.asc(), ENTRIES.ID.asc())
+                .limit(limit + 1)
+                .fetchSize(fetchSize)
+                .fetchLazy()) {
+            ReservationRest last = null;
+            for (int count = 0; cursor.hasNext(); count++) {
+                if (count == limit) return new Keyset(last.getDateTime(), last.getId());
+                last = cursor.fetchNext(RESERVATION);
+                sink.accept(last);
+            }
+            return null;
+        }
     }
 
+    /**
+     * Confirms the e-mail and with it claims the slot. The {@code entries_slot_excl} exclusion constraint rejects
+     * the update when a claimed reservation already overlaps, so two customers cannot confirm the same slot.
+     * The update runs in a nested transaction (a savepoint inside the caller's), so a rejected claim leaves the
+     * caller's transaction usable.
+     */
     @Override
-    public String confirmEmailOK(String token) {
+    public SlotClaim confirmEmailOK(String token) {
         log.info(">>confirmEmailOK(token={})", token);
-        ctx.update(ENTRIES).set(ENTRIES.EMAIL_OK, true).where(ENTRIES.ID.eq(UUID.fromString(token))).execute();
-        return "<html><body><h2>Rezervacija potvrđena!</h2></body></html>";
+        try {
+            Record1<LocalDateTime> claimed = ctx.transactionResult(cfg -> cfg.dsl().update(ENTRIES).set(ENTRIES.EMAIL_OK, true)
+                    .where(byId(token)).and(ENTRIES.EMAIL_OK.isFalse()).returningResult(ENTRIES.DATE_TIME).fetchOne());
+            if (claimed == null) return SlotClaim.ALREADY_CONFIRMED;
+            versions.changed(TenantContext.currentId(), claimed.value1().toLocalDate());
+            return SlotClaim.CLAIMED;
+        } catch (DataIntegrityViolationException e) {
+            log.info("Slot of {} already claimed: {}", token, e.getMostSpecificCause().getMessage());
+            return SlotClaim.TAKEN;
+        }
     }
 
     @Override
     @Transactional
     public ReservationRest confirmReservation(String id) {
         log.info(">>confirmReservation(id={})", id);
-        return ctx.update(ENTRIES).set(ENTRIES.CONFIRMED, true).where(ENTRIES.ID.eq(UUID.fromString(id))).returning().fetchOneInto(ReservationRest.class);
+        return changed(ctx.update(ENTRIES).set(ENTRIES.CONFIRMED, true).where(byId(id)).returning().fetchOneInto(ReservationRest.class));
     }
 
     @Override
     @Transactional
     public ReservationRest deleteReservation(String id) {
         log.info(">>deleteReservation(id={})", id);
-        return ctx.deleteFrom(ENTRIES).where(ENTRIES.ID.eq(UUID.fromString(id))).returning().fetchOneInto(ReservationRest.class);
+        return changed(ctx.deleteFrom(ENTRIES).where(byId(id)).returning().fetchOneInto(ReservationRest.class));
     }
 
 
     @Override
     public ReservationRest get(String uuid) {
-        return ctx.select(ENTRIES.ID, ENTRIES.NAME, ENTRIES.DATE_TIME, ENTRIES.EMAIL, ENTRIES.PHONE, ENTRIES.REGISTRATION, ENTRIES.LONG, ENTRIES.EMAIL_OK, ENTRIES.EMAIL, ENTRIES.EVENT_ID, ENTRIES.CONFIRMED)
-                .from(ENTRIES).where(ENTRIES.ID.eq(UUID.fromString(uuid))).fetchSingleInto(ReservationRest.class);
+        return selectReservation().from(ENTRIES).where(byId(uuid)).fetchSingle(RESERVATION);
     }
 
     @Override
     @Transactional
     public ReservationRest setEmail(UpdateReservationRest urr) {
         log.info(">>setEmail(id={}, email={})", urr.getId(), urr.getEmail());
-        return ctx.update(ENTRIES).set(ENTRIES.EMAIL, urr.getEmail()).where(ENTRIES.ID.eq(UUID.fromString(urr.getId()))).returning().fetchOneInto(ReservationRest.class);
+        return ctx.update(ENTRIES).set(ENTRIES.EMAIL, urr.getEmail()).where(byId(urr.getId())).returning().fetchOneInto(ReservationRest.class);
     }
 
     @Override
     @Transactional
     public void setEventId(String id, String eventId) {
         log.info(">>setEventId(id={}, eventId={})", id, eventId);
-        ctx.update(ENTRIES).set(ENTRIES.EVENT_ID, eventId).where(ENTRIES.ID.eq(UUID.fromString(id))).execute();
+        ctx.update(ENTRIES).set(ENTRIES.EVENT_ID, eventId).where(byId(id)).execute();
+    }
+
+    @Override
+    @Transactional
+    public void reschedule(String id, LocalDateTime dateTime, boolean _long) {
+        log.info(">>reschedule(id={}, dateTime={}, long={})", id, dateTime, _long);
+        changed(ctx.update(ENTRIES).set(ENTRIES.DATE_TIME, dateTime).set(ENTRIES.LONG, _long)
+                .set(ENTRIES.MINUTES, (short) workingHours.current().minutes(_long)).where(byId(id))
+                .returningResult(ENTRIES.DATE_TIME).fetchOptional().map(r -> new ReservationRest().dateTime(r.value1())).orElse(null));
+    }
+
+    private SelectSelectStep<Record10<UUID, String, LocalDateTime, String, String, String, Boolean, Boolean, String, Boolean>> selectReservation() {
+        return ctx.select(ENTRIES.ID, ENTRIES.NAME, ENTRIES.DATE_TIME, ENTRIES.EMAIL, ENTRIES.PHONE, ENTRIES.REGISTRATION,
+                ENTRIES.LONG, ENTRIES.CONFIRMED, ENTRIES.EVENT_ID, ENTRIES.EMAIL_OK);
+    }
+
+    private static Condition tenant() {
+        return ENTRIES.TENANT_ID.eq(TenantContext.currentId());
+    }
+
+    private static Condition byId(String id) {
+        return tenant().and(ENTRIES.ID.eq(UUID.fromString(id)));
+    }
+
+    private ReservationRest changed(ReservationRest rr) {
+        if (rr != null && rr.getDateTime() != null) versions.changed(TenantContext.currentId(), rr.getDateTime().toLocalDate());
+        return rr;
     }
 }
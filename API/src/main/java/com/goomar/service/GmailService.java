@@ -1,13 +1,24 @@
 package com.goomar.service;
 
-import com.google.api.client.auth.oauth2.Credential;
-import com.google.api.client.googleapis.auth.oauth2.GoogleAuthorizationCodeFlow;
-import com.google.api.client.googleapis.javanet.GoogleNetHttpTransport;
+import com.google.api.client.googleapis.batch.BatchRequest;
+import com.google.api.client.googleapis.batch.json.JsonBatchCallback;
+import com.google.api.client.googleapis.json.GoogleJsonError;
 import com.google.api.client.googleapis.json.GoogleJsonResponseException;
+import com.google.api.client.http.HttpHeaders;
 import com.google.api.client.json.jackson2.JacksonFactory;
 import com.google.api.client.util.Base64;
 import com.google.api.services.gmail.Gmail;
 import com.google.api.services.gmail.model.Message;
+import com.goomar.config.GoogleCallMetrics;
+import com.goomar.config.GoogleCredentials;
+import com.goomar.config.GoogleHttp;
+import com.goomar.config.GoogleGuard;
+import com.goomar.mail.MailTemplates;
+import com.goomar.tenant.TenantContext;
+import com.goomar.tenant.TenantRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.annotation.PostConstruct;
 import jakarta.mail.Message.RecipientType;
 import jakarta.mail.MessagingException;
@@ -19,26 +30,43 @@ import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.openapitools.model.ReservationRest;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Service;
 
-import java.io.BufferedReader;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+/** Sends the mails of the current tenant ({@link TenantContext}) from its own Gmail account and sender address. */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class GmailService implements IGmailService {
 
-    private final GoogleAuthorizationCodeFlow flow;
+    private static final String TPL_REGISTRATION = "registration-confirmation.html";
+    private static final String TPL_CONFIRMATION = "appointnment-confirmation.html";
+    private static final String TPL_DELETION = "appointnment-deletion.html";
+    private static final String API = GoogleGuard.GMAIL;
+    private static final String OP_BATCH = "messages.send.batch";
+
+    private final GoogleCredentials credentials;
+    private final GoogleHttp googleHttp;
+    private final MailTemplates templates;
+    private final GoogleCallMetrics metrics;
+    private final GoogleGuard guard;
+    private final MeterRegistry registry;
+    private final TenantRegistry tenants;
+    private final Session mailSession = Session.getInstance(new Properties(), null);
 
     private static final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd.MM.yyyy., HH:mm");
 
@@ -48,137 +76,217 @@ public class GmailService implements IGmailService {
     @Value("${goomar.mail.from:termin@bosnic.hr}")
     private String fromAddress;
 
-    private Gmail gmail;
-    private Credential credential;
-
-    private String tplRegistration;
-    private String tplConfirmation;
-    private String tplDeletion;
-
-    @PostConstruct
-    void init() {
-        this.tplRegistration = loadClasspath("templates/registration-confirmation.html");
-        this.tplConfirmation = loadClasspath("templates/appointnment-confirmation.html");
-        this.tplDeletion = loadClasspath("templates/appointnment-deletion.html");
-
-        try {
-            initGmailClient();
-        } catch (Exception e) {
-            log.warn("⚠️ Gmail not initialized yet — user must authorize first via /google/auth");
-        }
+    @Value("#{T(java.lang.Math).min(${goomar.mail.batch.size:50}, 100)}")
+    private int batchSize;
 
-        log.info("📩 GmailService initialized (templates loaded, gmail client: {})", gmail != null ? "ready" : "not yet authorized");
-    }
+    @Value("${goomar.mail.batch.retries:2}")
+    private int batchRetries;
 
-    private synchronized void initGmailClient() throws Exception {
-        if (this.gmail != null && this.credential != null) return;
+    @Value("${goomar.mail.batch.backoff:PT1S}")
+    private Duration batchBackoff;
 
-        this.credential = flow.loadCredential("user");
-        if (this.credential == null) {
-            throw new IllegalStateException("No Google credentials found. Please authorize via /google/auth");
-        }
+    /** Gmail client per credential user; bounded by the tenants served. */
+    private final Map<String, Gmail> clients = new ConcurrentHashMap<>();
 
-        this.gmail = new Gmail.Builder(GoogleNetHttpTransport.newTrustedTransport(), JacksonFactory.getDefaultInstance(), credential).setApplicationName("Goomar App").build();
+    @PostConstruct
+    void init() {
+        templates.get(TPL_REGISTRATION);
+        templates.get(TPL_CONFIRMATION);
+        templates.get(TPL_DELETION);
 
-        log.info("✅ Gmail client initialized successfully.");
+        log.info("📩 GmailService initialized (templates loaded, {} tenant(s))", tenants.all().size());
     }
 
-    private String loadClasspath(String path) {
-        try (var reader = new BufferedReader(new InputStreamReader(new ClassPathResource(path).getInputStream(), StandardCharsets.UTF_8))) {
-            return reader.lines().reduce("", (acc, line) -> acc + line + "\n");
-        } catch (IOException e) {
-            throw new UncheckedIOException("Failed to load template: " + path, e);
-        }
+    private Gmail gmail() {
+        String user = TenantContext.current().credentialUser();
+        return clients.computeIfAbsent(user, u -> new Gmail.Builder(googleHttp.getTransport(), JacksonFactory.getDefaultInstance(),
+                googleHttp.initializer(credentials.initializer(u))).setApplicationName("Goomar App").build());
     }
 
-
     @Override
     public void sendReservation(ReservationRest rr, UUID uuid) {
         log.info("sendReservation(rr={}, uuid={})", rr, uuid);
-        Map<String, String> values = Map.of("name", rr.getName(), "registration", rr.getRegistration(), "timeslot", rr.getDateTime().format(formatter), "confirmationUrl", appUrl + "/V1/confirmation?uuid=" + uuid);
-        sendMail(rr.getEmail(), "Potvrda rezervacije", replacePlaceholders(tplRegistration, values));
+        sendMail(reservationMail(rr, uuid));
     }
 
     @Override
     public void sendConfirmation(ReservationRest rr) {
         log.info("sendConfirmation(rr={})", rr);
-        Map<String, String> values = Map.of("name", rr.getName(), "registration", rr.getRegistration(), "timeslot", rr.getDateTime().format(formatter));
-        sendMail(rr.getEmail(), "Potvrda termina", replacePlaceholders(tplConfirmation, values));
+        sendMail(confirmationMail(rr));
     }
 
     @Override
     public void sendDelete(ReservationRest rr) {
         log.info("sendDelete(rr={})", rr);
-        Map<String, String> values = Map.of("name", rr.getName(),"registration", rr.getRegistration(),"timeslot", rr.getDateTime().format(formatter));
-        sendMail(rr.getEmail(), "Poništenje termina !!!",replacePlaceholders(tplDeletion, values));
+        sendMail(deleteMail(rr));
     }
 
-    private String replacePlaceholders(String template, Map<String, String> values) {
-        log.info("replacePlaceholders(values={})", values);
-        String result = template;
-        for (var entry : values.entrySet()) {
-            result = result.replace("{{" + entry.getKey() + "}}", entry.getValue());
-        }
-        return result;
+    @Override
+    public OutgoingMail reservationMail(ReservationRest rr, UUID uuid) {
+        Map<String, String> values = Map.of("name", rr.getName(), "registration", rr.getRegistration(), "timeslot", rr.getDateTime().format(formatter), "confirmationUrl", appUrl + TenantContext.current().pathPrefix() + "/V1/confirmation?uuid=" + uuid);
+        return new OutgoingMail(rr.getEmail(), "Potvrda rezervacije", templates.get(TPL_REGISTRATION).render(values));
     }
 
-    @SneakyThrows
-    public void sendMail(String to, String subject, String content) {
-        ensureGmailReady();
+    @Override
+    public OutgoingMail confirmationMail(ReservationRest rr) {
+        Map<String, String> values = Map.of("name", rr.getName(), "registration", rr.getRegistration(), "timeslot", rr.getDateTime().format(formatter));
+        return new OutgoingMail(rr.getEmail(), "Potvrda termina", templates.get(TPL_CONFIRMATION).render(values));
+    }
 
-        MimeMessage mimeMessage = buildMime(to, subject, content);
-        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
-        mimeMessage.writeTo(buffer);
+    @Override
+    public OutgoingMail deleteMail(ReservationRest rr) {
+        Map<String, String> values = Map.of("name", rr.getName(), "registration", rr.getRegistration(), "timeslot", rr.getDateTime().format(formatter));
+        return new OutgoingMail(rr.getEmail(), "Poništenje termina !!!", templates.get(TPL_DELETION).render(values));
+    }
+
+    private void sendMail(OutgoingMail mail) {
+        sendMail(mail.to(), mail.subject(), mail.htmlBody());
+    }
 
-        String encodedEmail = Base64.encodeBase64URLSafeString(buffer.toByteArray());
-        Message message = new Message().setRaw(encodedEmail);
+    @SneakyThrows
+    public void sendMail(String to, String subject, String content) {
+        Message message = new Message().setRaw(encode(to, subject, content));
+        Gmail gmail = gmail();
 
-        Message sent = executeWithRetry(() -> gmail.users().messages().send("me", message).execute(), "gmail.users.messages.send");
+        try {
+            executeWithRetry(() -> gmail.users().messages().send("me", message).execute(), "messages.send");
+        } catch (Exception e) {
+            mailCounter("failed").increment();
+            throw e;
+        }
+        mailCounter("sent").increment();
         log.info("📧  Email sent to={} subject={}", to, subject);
     }
 
-    private synchronized void ensureGmailReady() throws Exception {
-        if (this.gmail == null || this.credential == null) {
-            log.info("⚙️ Gmail client not ready — attempting to initialize");
-            initGmailClient();
+    /**
+     * Sends the mails in Gmail HTTP batches of {@code goomar.mail.batch.size} and retries only the messages that
+     * failed with a retryable status, up to {@code goomar.mail.batch.retries} more rounds.
+     */
+    @SneakyThrows
+    @Override
+    public List<MailSendResult> sendAll(List<OutgoingMail> mails) {
+        if (mails.isEmpty()) return List.of();
+
+        String user = TenantContext.current().credentialUser();
+        MailSendResult[] results = new MailSendResult[mails.size()];
+        List<Integer> pending = new ArrayList<>();
+        for (int i = 0; i < mails.size(); i++) pending.add(i);
+
+        for (int round = 0; ; round++) {
+            List<Integer> retry = new ArrayList<>();
+            boolean unauthorized = false;
+            for (int from = 0; from < pending.size(); from += batchSize) {
+                List<Integer> chunk = pending.subList(from, Math.min(from + batchSize, pending.size()));
+                unauthorized |= sendBatch(mails, chunk, results, retry);
+            }
+            if (retry.isEmpty() || round >= batchRetries) break;
+
+            log.warn("Gmail batch round {}: {} of {} mails failed, retrying", round + 1, retry.size(), pending.size());
+            if (unauthorized) {
+                metrics.unauthorizedRetry(API, OP_BATCH);
+                credentials.refreshAfterUnauthorized(user);
+            }
+            Thread.sleep(batchBackoff.toMillis() << round);
+            pending = retry;
         }
 
-        if (credential.getExpiresInSeconds() != null && credential.getExpiresInSeconds() < 60) {
-            if (credential.refreshToken()) {
-                log.info("🔄  Gmail access token refreshed successfully.");
+        long sent = Arrays.stream(results).filter(MailSendResult::sent).count();
+        mailCounter("sent").increment(sent);
+        mailCounter("failed").increment(mails.size() - sent);
+        log.info("📧  Batch sent {}/{} emails", sent, mails.size());
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Sends one batch. The callbacks collect into maps of their own and are merged here, since a batch that ran past
+     * the Gmail deadline may still be answering when the guard gives up on it.
+     */
+    private boolean sendBatch(List<OutgoingMail> mails, List<Integer> chunk, MailSendResult[] results, List<Integer> retry) throws Exception {
+        Map<Integer, MailSendResult> answered = new ConcurrentHashMap<>();
+        Set<Integer> retryable = ConcurrentHashMap.newKeySet();
+        AtomicBoolean unauthorized = new AtomicBoolean();
+        Gmail gmail = gmail();
+        BatchRequest batch = gmail.batch();
+        for (int i : chunk) {
+            OutgoingMail mail = mails.get(i);
+            Message message = new Message().setRaw(encode(mail.to(), mail.subject(), mail.htmlBody()));
+            gmail.users().messages().send("me", message).queue(batch, new JsonBatchCallback<>() {
+                @Override
+                public void onSuccess(Message sent, HttpHeaders headers) {
+                    answered.put(i, new MailSendResult(mail, sent.getId(), null));
+                }
+
+                @Override
+                public void onFailure(GoogleJsonError error, HttpHeaders headers) {
+                    answered.put(i, new MailSendResult(mail, null, error.getCode() + " " + error.getMessage()));
+                    if (error.getCode() == 401) unauthorized.set(true);
+                    if (isRetryable(error)) retryable.add(i);
+                }
+            });
+        }
+        Timer.Sample sample = Timer.start();
+        Exception failure = null;
+        try {
+            guard.call(API, () -> {
+                batch.execute();
+                return null;
+            });
+            metrics.stop(sample, API, OP_BATCH, null);
+        } catch (Exception e) {
+            metrics.stop(sample, API, OP_BATCH, e);
+            log.warn("Gmail batch of {} failed: {}", chunk.size(), e.getMessage());
+            failure = e;
+        }
+        for (int i : chunk) {
+            MailSendResult result = answered.get(i);
+            if (failure != null && (result == null || !result.sent())) {
+                results[i] = new MailSendResult(mails.get(i), null, failure.getClass().getSimpleName() + ": " + failure.getMessage());
+                retry.add(i);
             } else {
-                log.warn("⚠️  Gmail token refresh failed. User reauthorization may be required.");
+                results[i] = result;
+                if (retryable.contains(i)) retry.add(i);
             }
         }
+        return unauthorized.get();
+    }
+
+    private static boolean isRetryable(GoogleJsonError error) {
+        int code = error.getCode();
+        if (code == 401 || code == 429 || code >= 500) return true;
+        return code == 403 && error.getErrors() != null && error.getErrors().stream()
+                .anyMatch(e -> "rateLimitExceeded".equals(e.getReason()) || "userRateLimitExceeded".equals(e.getReason()));
+    }
+
+    private String encode(String to, String subject, String content) throws MessagingException, IOException {
+        MimeMessage mimeMessage = buildMime(to, subject, content);
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        mimeMessage.writeTo(buffer);
+        return Base64.encodeBase64URLSafeString(buffer.toByteArray());
     }
 
     private <T> T executeWithRetry(java.util.concurrent.Callable<T> call, String op) throws Exception {
+        String user = TenantContext.current().credentialUser();
         try {
-            return call.call();
+            return guard.call(API, () -> metrics.record(API, op, call));
         } catch (GoogleJsonResponseException e) {
             if (e.getStatusCode() == 401) {
-                log.warn("401 from Gmail API during {}. Attempting token refresh...", op);
-                if (credential != null && credential.refreshToken()) {
-                    return call.call();
-                }
-                log.warn("Refresh failed. Reloading credential and rebuilding Gmail client...");
-                Credential reloaded = flow.loadCredential("user");
-                if (reloaded != null) {
-                    this.credential = reloaded;
-                    this.gmail = new Gmail.Builder(GoogleNetHttpTransport.newTrustedTransport(),JacksonFactory.getDefaultInstance(),credential).setApplicationName("Goomar App").build();
-                    return call.call();
-                }
-                throw new IllegalStateException("Google authorization expired. Please re-authorize via /google/auth");
+                log.warn("401 from Gmail API during {}. Forcing token refresh...", op);
+                metrics.unauthorizedRetry(API, op);
+                credentials.refreshAfterUnauthorized(user);
+                return guard.call(API, () -> metrics.record(API, op, call));
             }
             throw e;
         }
     }
 
+    private Counter mailCounter(String result) {
+        return registry.counter("mail.send", "result", result);
+    }
+
     private MimeMessage buildMime(String to, String subject, String content) throws MessagingException {
-        Properties props = new Properties();
-        Session session = Session.getInstance(props, null);
-        MimeMessage email = new MimeMessage(session);
-        email.setFrom(new InternetAddress(fromAddress));
+        MimeMessage email = new MimeMessage(mailSession);
+        String from = TenantContext.current().mailFrom();
+        email.setFrom(new InternetAddress(from != null ? from : fromAddress));
         email.addRecipient(RecipientType.TO, new InternetAddress(to));
         email.setSubject(subject, StandardCharsets.UTF_8.name());
         email.setContent(content, "text/html; charset=UTF-8");
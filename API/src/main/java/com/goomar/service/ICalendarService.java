@@ -1,22 +1,38 @@
 package com.goomar.service;
 
-import lombok.SneakyThrows;
 import org.openapitools.model.FreeSlotRest;
 import org.openapitools.model.ReservationRest;
 
 import java.time.LocalDate;
-import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.List;
+import java.util.Map;
 
 public interface ICalendarService {
     String insertAppointment(ReservationRest reservationRest);
 
-    @SneakyThrows
-    boolean slotFree(LocalDateTime dateTime, boolean _long);
+    /** False when the busy index, or Google for days it does not hold, shows the reservation's slot blocked by another event. */
+    boolean slotFree(ReservationRest rr);
+
+    /** Version of the free slots of {@code date}, or {@code null} when they are not tracked (index stale or disabled). */
+    String availabilityVersion(LocalDate date);
 
     List<FreeSlotRest> getFreeSlots(LocalDate date, boolean longService);
 
+    ZoneId zone();
+
+    /** Events of {@code day} in the busy index, or {@code null} when the index is not current for that day. */
+    List<BusyIndex.Busy> indexedEvents(LocalDate day);
+
+    /** The event in the busy index, or {@code null} when it is not busy inside the indexed window. */
+    BusyIndex.Busy indexedEvent(String eventId);
+
+    Map<LocalDate, List<FreeSlotRest>> getFreeSlots(LocalDate from, LocalDate to, boolean longService);
+
     void confirmAppointment(String eventId);
 
     void deleteAppointment(String id);
+
+    /** Undoes {@link #deleteAppointment}: a deleted event is restored by setting it confirmed again. */
+    void restoreAppointment(String eventId);
 }
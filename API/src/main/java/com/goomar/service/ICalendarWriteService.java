@@ -0,0 +1,20 @@
+package com.goomar.service;
+
+import org.openapitools.model.ReservationRest;
+
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Calendar writes of the reservation flow. Each write is queued inside the caller's transaction and goes to Google
+ * once that transaction has committed, so the caller never waits on Google while it holds a connection.
+ */
+public interface ICalendarWriteService {
+
+    void insertAppointment(ReservationRest rr);
+    void confirmAppointment(ReservationRest rr);
+    void deleteAppointment(ReservationRest rr);
+
+    /** Entries with calendar writes still queued. */
+    Set<UUID> pendingEntries();
+}
@@ -3,16 +3,41 @@ package com.goomar.service;
 import org.openapitools.model.ReservationRest;
 import org.openapitools.model.UpdateReservationRest;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Base64;
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 public interface IEntryService {
+    enum SlotClaim { CLAIMED, ALREADY_CONFIRMED, TAKEN }
+
+    /** Position of the last reservation of a page, passed to the client as an opaque {@code next} token. */
+    record Keyset(LocalDateTime dateTime, UUID id) {
+        public String encode() {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString((dateTime + "|" + id).getBytes(StandardCharsets.UTF_8));
+        }
+
+        public static Keyset decode(String token) {
+            try {
+                String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split("\\|", 2);
+                return new Keyset(LocalDateTime.parse(parts[0]), UUID.fromString(parts[1]));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid page token " + token);
+            }
+        }
+    }
+
     UUID insertReservation(ReservationRest reservationRest);
     List<ReservationRest> getAppointments(int year, int month, int day);
-    String confirmEmailOK(String token);
+    Keyset streamReservations(LocalDate from, LocalDate to, Keyset after, int limit, Consumer<ReservationRest> sink);
+    SlotClaim confirmEmailOK(String token);
     ReservationRest confirmReservation(String id);
     ReservationRest deleteReservation(String eventId);
     void setEventId(String id, String eventId);
     ReservationRest get(String uuid);
     ReservationRest setEmail(UpdateReservationRest urr);
+    void reschedule(String id, LocalDateTime dateTime, boolean _long);
 }
@@ -1,8 +1,8 @@
 package com.goomar.service;
 
-import lombok.SneakyThrows;
 import org.openapitools.model.ReservationRest;
 
+import java.util.List;
 import java.util.UUID;
 
 public interface IGmailService {
@@ -10,4 +10,8 @@ public interface IGmailService {
     void sendReservation(ReservationRest rr, UUID uuid);
     void sendConfirmation(ReservationRest rr);
     void sendDelete(ReservationRest rr);
+    OutgoingMail reservationMail(ReservationRest rr, UUID uuid);
+    OutgoingMail confirmationMail(ReservationRest rr);
+    OutgoingMail deleteMail(ReservationRest rr);
+    List<MailSendResult> sendAll(List<OutgoingMail> mails);
 }
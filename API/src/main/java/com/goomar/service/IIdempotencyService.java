@@ -0,0 +1,29 @@
+package com.goomar.service;
+
+import java.util.function.Supplier;
+
+public interface IIdempotencyService {
+    /** The response of the request, and whether it was replayed from an earlier request with the same key. */
+    record Outcome(String response, boolean replayed) {
+    }
+
+    /** The key was already used for a request with a different body. */
+    class KeyReusedException extends RuntimeException {
+        public KeyReusedException(String key) {
+            super("Idempotency-Key " + key + " was used for a different request");
+        }
+    }
+
+    /** A request with the same key is still running; the client should retry shortly. */
+    class KeyInProgressException extends RuntimeException {
+        public KeyInProgressException(String key) {
+            super("Idempotency-Key " + key + " is still in progress");
+        }
+    }
+
+    /**
+     * Runs {@code action} once per {@code key} within the TTL, inside the caller's transaction; later requests with the
+     * same key and {@code requestHash} get the stored response back.
+     */
+    Outcome execute(String key, String requestHash, Supplier<String> action);
+}
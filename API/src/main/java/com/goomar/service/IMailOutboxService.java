@@ -0,0 +1,11 @@
+package com.goomar.service;
+
+import org.openapitools.model.ReservationRest;
+
+import java.util.UUID;
+
+public interface IMailOutboxService {
+    void enqueueReservation(ReservationRest rr, UUID uuid);
+    void enqueueConfirmation(ReservationRest rr);
+    void enqueueDelete(ReservationRest rr);
+}
@@ -0,0 +1,10 @@
+package com.goomar.service;
+
+import org.openapitools.model.UpdateReservationRest;
+
+public interface IReservationWorkflow {
+    boolean isConfirmed(String id);
+    IEntryService.SlotClaim confirmEmail(String id);
+    void update(UpdateReservationRest urr);
+    void delete(String id);
+}
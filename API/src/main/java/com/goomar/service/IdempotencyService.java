@@ -0,0 +1,105 @@
+package com.goomar.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.jooq.DSLContext;
+import org.jooq.Record2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.function.Supplier;
+
+import static org.jooq.generated.tables.IdempotencyKey.IDEMPOTENCY_KEY;
+
+/**
+ * Idempotency keys backed by {@code goomar.idempotency_key}, fronted by an in-process LRU of completed responses.
+ * The first request claims the key with an insert in the caller's transaction, so the claim, the action and the
+ * stored response commit or roll back together. A concurrent duplicate blocks on that row until the first commits
+ * and then replays its response, or takes the key over if the first rolled back; one that still finds no response
+ * gets a {@link KeyInProgressException}. A stored response is only cached after commit, and expired keys are purged
+ * in the background.
+ */
+@Service
+@Slf4j
+public class IdempotencyService implements IIdempotencyService {
+
+    private record Stored(String requestHash, String response) {
+    }
+
+    private final DSLContext ctx;
+    private final MeterRegistry registry;
+    private final Duration ttl;
+    private final LruCache<String, Stored> completed;
+
+    public IdempotencyService(DSLContext ctx, MeterRegistry registry,
+                              @Value("${goomar.idempotency.ttl:PT24H}") Duration ttl,
+                              @Value("${goomar.idempotency.cacheSize:10000}") int cacheSize) {
+        this.ctx = ctx;
+        this.registry = registry;
+        this.ttl = ttl;
+        this.completed = new LruCache<>(cacheSize, ttl);
+        Gauge.builder("idempotency.cache.size", completed, LruCache::size).register(registry);
+    }
+
+    @Override
+    @Transactional
+    public Outcome execute(String key, String requestHash, Supplier<String> action) {
+        Stored stored = completed.get(key);
+        if (stored != null) return replay(key, requestHash, stored);
+
+        OffsetDateTime now = OffsetDateTime.now();
+        int claimed = ctx.insertInto(IDEMPOTENCY_KEY, IDEMPOTENCY_KEY.KEY, IDEMPOTENCY_KEY.REQUEST_HASH, IDEMPOTENCY_KEY.EXPIRES_AT)
+                .values(key, requestHash, now.plus(ttl))
+                .onConflict(IDEMPOTENCY_KEY.KEY).doUpdate()
+                .set(IDEMPOTENCY_KEY.REQUEST_HASH, requestHash).setNull(IDEMPOTENCY_KEY.RESPONSE)
+                .set(IDEMPOTENCY_KEY.CREATED_AT, now).set(IDEMPOTENCY_KEY.EXPIRES_AT, now.plus(ttl))
+                .where(IDEMPOTENCY_KEY.EXPIRES_AT.lt(now))
+                .execute();
+        if (claimed == 0) {
+            Record2<String, String> row = ctx.select(IDEMPOTENCY_KEY.REQUEST_HASH, IDEMPOTENCY_KEY.RESPONSE).from(IDEMPOTENCY_KEY)
+                    .where(IDEMPOTENCY_KEY.KEY.eq(key)).fetchSingle();
+            if (row.value2() == null) {
+                registry.counter("idempotency.requests", "result", "in_progress").increment();
+                throw new KeyInProgressException(key);
+            }
+            stored = new Stored(row.value1(), row.value2());
+            if (stored.requestHash().equals(requestHash)) completed.put(key, stored);
+            return replay(key, requestHash, stored);
+        }
+
+        String response = action.get();
+        ctx.update(IDEMPOTENCY_KEY).set(IDEMPOTENCY_KEY.RESPONSE, response).where(IDEMPOTENCY_KEY.KEY.eq(key)).execute();
+        Stored done = new Stored(requestHash, response);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                completed.put(key, done);
+            }
+        });
+        registry.counter("idempotency.requests", "result", "executed").increment();
+        return new Outcome(response, false);
+    }
+
+    @Scheduled(fixedDelayString = "${goomar.idempotency.purgeInterval:PT1H}", initialDelayString = "PT5M")
+    public void purge() {
+        int purged = ctx.deleteFrom(IDEMPOTENCY_KEY).where(IDEMPOTENCY_KEY.EXPIRES_AT.lt(OffsetDateTime.now())).execute();
+        if (purged > 0) log.info("🧹 Purged {} expired idempotency keys", purged);
+    }
+
+    private Outcome replay(String key, String requestHash, Stored stored) {
+        if (!stored.requestHash().equals(requestHash)) {
+            registry.counter("idempotency.requests", "result", "reused").increment();
+            throw new KeyReusedException(key);
+        }
+        registry.counter("idempotency.requests", "result", "replayed").increment();
+        log.info("Replaying response of Idempotency-Key {}", key);
+        return new Outcome(stored.response(), true);
+    }
+}
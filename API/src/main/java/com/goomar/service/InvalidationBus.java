@@ -0,0 +1,134 @@
+package com.goomar.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.jooq.DSLContext;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Cross-replica invalidation over Postgres LISTEN/NOTIFY. Triggers (db/006) and {@link #publish} announce committed
+ * changes on {@code goomar_invalidate} as {@code <kind>:<key>}; one listener thread per instance, on its own
+ * connection outside the pool, hands them to the subscribers of the kind. After a lost connection every subscriber
+ * gets {@code null}, meaning "anything may have changed".
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class InvalidationBus implements SmartLifecycle {
+
+    static final String CHANNEL = "goomar_invalidate";
+
+    private final DSLContext ctx;
+    private final DataSourceProperties dataSource;
+    private final MeterRegistry registry;
+    private final Map<String, List<Consumer<String>>> subscribers = new ConcurrentHashMap<>();
+
+    @Value("${goomar.invalidation.enabled:true}")
+    private boolean enabled;
+
+    @Value("${goomar.invalidation.pollTimeout:PT10S}")
+    private Duration pollTimeout;
+
+    @Value("${goomar.invalidation.reconnectDelay:PT5S}")
+    private Duration reconnectDelay;
+
+    private final String instance = UUID.randomUUID().toString();
+    private volatile Thread listener;
+
+    /** Id of this instance, for publishers whose own instance should ignore the notification. */
+    public String instance() {
+        return instance;
+    }
+
+    public void subscribe(String kind, Consumer<String> subscriber) {
+        subscribers.computeIfAbsent(kind, k -> new CopyOnWriteArrayList<>()).add(subscriber);
+    }
+
+    /** Announces a change to every instance, this one included; inside a transaction it is sent on commit. */
+    public void publish(String kind, String key) {
+        if (!enabled) return;
+        ctx.fetch("select pg_notify(?, ?)", CHANNEL, key == null ? kind : kind + ":" + key);
+    }
+
+    @Override
+    public void start() {
+        if (!enabled) return;
+        listener = Thread.ofPlatform().daemon().name("pg-invalidation-listener").start(this::listen);
+    }
+
+    @Override
+    public void stop() {
+        Thread thread = listener;
+        listener = null;
+        if (thread != null) thread.interrupt();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return listener != null;
+    }
+
+    private void listen() {
+        boolean reconnect = false;
+        while (listener != null) {
+            try (Connection connection = DriverManager.getConnection(dataSource.determineUrl(), dataSource.determineUsername(), dataSource.determinePassword())) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                log.info("📣 Listening for invalidations on {}", CHANNEL);
+                if (reconnect) dispatchAll();
+                reconnect = true;
+                PGConnection pg = connection.unwrap(PGConnection.class);
+                while (listener != null) {
+                    PGNotification[] notifications = pg.getNotifications((int) pollTimeout.toMillis());
+                    if (notifications == null) continue;
+                    for (PGNotification notification : notifications) dispatch(notification.getParameter());
+                }
+            } catch (Exception e) {
+                if (listener == null) return;
+                log.warn("Invalidation listener lost its connection: {}", e.getMessage());
+                try {
+                    Thread.sleep(reconnectDelay.toMillis());
+                } catch (InterruptedException ie) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void dispatch(String payload) {
+        int separator = payload.indexOf(':');
+        String kind = separator < 0 ? payload : payload.substring(0, separator);
+        String key = separator < 0 ? null : payload.substring(separator + 1);
+        registry.counter("invalidation.received", "kind", kind).increment();
+        for (Consumer<String> subscriber : subscribers.getOrDefault(kind, List.of())) {
+            try {
+                subscriber.accept(key);
+            } catch (RuntimeException e) {
+                log.warn("Invalidation {} failed: {}", payload, e.getMessage());
+            }
+        }
+    }
+
+    private void dispatchAll() {
+        log.info("Invalidation listener reconnected, invalidating everything");
+        subscribers.values().forEach(list -> list.forEach(subscriber -> subscriber.accept(null)));
+    }
+}
@@ -0,0 +1,51 @@
+package com.goomar.service;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/** Small bounded, access-ordered map whose entries also expire after {@code ttl}; for in-process fronts of tables. */
+class LruCache<K, V> {
+
+    private record Slot<V>(V value, long expiresAt) {
+    }
+
+    private final long ttl;
+    private final Map<K, Slot<V>> map;
+
+    LruCache(int maxSize, Duration ttl) {
+        this.ttl = ttl.toNanos();
+        this.map = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Slot<V>> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    synchronized V get(K key) {
+        Slot<V> slot = map.get(key);
+        if (slot == null) return null;
+        if (slot.expiresAt() - System.nanoTime() < 0) {
+            map.remove(key);
+            return null;
+        }
+        return slot.value();
+    }
+
+    synchronized void put(K key, V value) {
+        map.put(key, new Slot<>(value, System.nanoTime() + ttl));
+    }
+
+    synchronized void remove(K key) {
+        map.remove(key);
+    }
+
+    synchronized void clear() {
+        map.clear();
+    }
+
+    synchronized int size() {
+        return map.size();
+    }
+}
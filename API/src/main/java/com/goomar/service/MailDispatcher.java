@@ -0,0 +1,218 @@
+package com.goomar.service;
+
+import com.goomar.tenant.Tenant;
+import com.goomar.tenant.TenantContext;
+import com.goomar.tenant.TenantRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.jooq.DSLContext;
+import org.jooq.generated.tables.records.MailOutboxRecord;
+import org.openapitools.model.ReservationRest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.jooq.generated.tables.MailOutbox.MAIL_OUTBOX;
+import static org.jooq.impl.DSL.select;
+
+/**
+ * Drains the mail outbox on a virtual thread. Rows are claimed in batches with {@code FOR UPDATE SKIP LOCKED}
+ * and a lease, so several instances can share the table, and the mails of each tenant in a batch go out as one Gmail
+ * batch request from that tenant's account.
+ * Failures back off exponentially and end up DEAD after {@code goomar.mail.outbox.maxAttempts}.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class MailDispatcher implements SmartLifecycle {
+
+    static final String STATUS_PENDING = "PENDING";
+    static final String STATUS_SENT = "SENT";
+    static final String STATUS_DEAD = "DEAD";
+
+    private final DSLContext ctx;
+    private final IGmailService emailService;
+    private final TenantRegistry tenants;
+    private final MeterRegistry registry;
+
+    @Value("${goomar.mail.outbox.batchSize:20}")
+    private int batchSize;
+
+    @Value("${goomar.mail.outbox.maxAttempts:8}")
+    private int maxAttempts;
+
+    @Value("${goomar.mail.outbox.backoff:PT30S}")
+    private Duration backoff;
+
+    @Value("${goomar.mail.outbox.maxBackoff:PT1H}")
+    private Duration maxBackoff;
+
+    @Value("${goomar.mail.outbox.lease:PT5M}")
+    private Duration lease;
+
+    @Value("${goomar.mail.outbox.pollInterval:PT15S}")
+    private Duration pollInterval;
+
+    private final Semaphore signal = new Semaphore(0);
+    /** Pending mails as of the last pass of the dispatcher loop, so scrapes never query the database. */
+    private final AtomicLong pending = new AtomicLong();
+    private volatile boolean running;
+    private Thread worker;
+
+    @PostConstruct
+    void init() {
+        Gauge.builder("mail.outbox.pending", pending, AtomicLong::get)
+                .description("Mails waiting in the outbox").register(registry);
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        worker = Thread.ofVirtual().name("mail-dispatcher").start(this::run);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (worker != null) worker.interrupt();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    public void wakeUp() {
+        signal.release();
+    }
+
+    private void run() {
+        log.info("📮 Mail dispatcher started (batch={}, maxAttempts={})", batchSize, maxAttempts);
+        while (running) {
+            try {
+                int drained;
+                do {
+                    drained = drainBatch();
+                } while (running && drained == batchSize);
+                pending.set(ctx.fetchCount(MAIL_OUTBOX, MAIL_OUTBOX.STATUS.eq(STATUS_PENDING)));
+                signal.tryAcquire(pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+                signal.drainPermits();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.warn("Mail dispatcher iteration failed: {}", e.getMessage());
+                sleepQuietly();
+            }
+        }
+    }
+
+    private int drainBatch() {
+        List<MailOutboxRecord> batch = claim();
+        if (batch.isEmpty()) return 0;
+
+        Map<String, List<MailOutboxRecord>> byTenant = new LinkedHashMap<>();
+        batch.forEach(mail -> byTenant.computeIfAbsent(mail.getTenantId(), id -> new ArrayList<>()).add(mail));
+        byTenant.forEach((id, mails) -> {
+            Tenant tenant = tenants.get(id);
+            if (tenant == null) mails.forEach(mail -> failed(mail, "Unknown tenant " + id));
+            else TenantContext.run(tenant, () -> send(mails));
+        });
+        return batch.size();
+    }
+
+    private void send(List<MailOutboxRecord> batch) {
+        List<MailOutboxRecord> rendered = new ArrayList<>(batch.size());
+        List<OutgoingMail> mails = new ArrayList<>(batch.size());
+        for (MailOutboxRecord mail : batch) {
+            try {
+                mails.add(render(mail));
+                rendered.add(mail);
+            } catch (Exception e) {
+                failed(mail, e.getClass().getSimpleName() + ": " + e.getMessage());
+            }
+        }
+
+        List<MailSendResult> results;
+        try {
+            results = emailService.sendAll(mails);
+        } catch (Exception e) {
+            rendered.forEach(mail -> failed(mail, e.getClass().getSimpleName() + ": " + e.getMessage()));
+            return;
+        }
+        for (int i = 0; i < rendered.size(); i++) {
+            MailOutboxRecord mail = rendered.get(i);
+            if (results.get(i).sent()) {
+                ctx.update(MAIL_OUTBOX).set(MAIL_OUTBOX.STATUS, STATUS_SENT).set(MAIL_OUTBOX.SENT_AT, OffsetDateTime.now())
+                        .setNull(MAIL_OUTBOX.LAST_ERROR).where(MAIL_OUTBOX.ID.eq(mail.getId())).execute();
+                outboxCounter(mail, "sent").increment();
+            } else {
+                failed(mail, results.get(i).error());
+            }
+        }
+    }
+
+    private List<MailOutboxRecord> claim() {
+        OffsetDateTime now = OffsetDateTime.now();
+        return ctx.update(MAIL_OUTBOX)
+                .set(MAIL_OUTBOX.ATTEMPTS, MAIL_OUTBOX.ATTEMPTS.plus(1))
+                .set(MAIL_OUTBOX.NEXT_ATTEMPT_AT, now.plus(lease))
+                .where(MAIL_OUTBOX.ID.in(select(MAIL_OUTBOX.ID).from(MAIL_OUTBOX)
+                        .where(MAIL_OUTBOX.STATUS.eq(STATUS_PENDING)).and(MAIL_OUTBOX.NEXT_ATTEMPT_AT.le(now))
+                        .orderBy(MAIL_OUTBOX.ID).limit(batchSize).forUpdate().skipLocked()))
+                .returning().fetch();
+    }
+
+    private OutgoingMail render(MailOutboxRecord mail) {
+        ReservationRest rr = new ReservationRest().id(mail.getEntryId()).email(mail.getEmail()).name(mail.getName())
+                .registration(mail.getRegistration()).dateTime(mail.getDateTime());
+        return switch (mail.getKind()) {
+            case MailOutboxService.KIND_RESERVATION -> emailService.reservationMail(rr, mail.getEntryId());
+            case MailOutboxService.KIND_CONFIRMATION -> emailService.confirmationMail(rr);
+            case MailOutboxService.KIND_DELETE -> emailService.deleteMail(rr);
+            default -> throw new IllegalStateException("Unknown mail kind " + mail.getKind());
+        };
+    }
+
+    private void failed(MailOutboxRecord mail, String error) {
+        if (mail.getAttempts() >= maxAttempts) {
+            log.error("☠️ Mail {} ({} to {}) dead after {} attempts: {}", mail.getId(), mail.getKind(), mail.getEmail(), mail.getAttempts(), error);
+            ctx.update(MAIL_OUTBOX).set(MAIL_OUTBOX.STATUS, STATUS_DEAD).set(MAIL_OUTBOX.LAST_ERROR, error)
+                    .where(MAIL_OUTBOX.ID.eq(mail.getId())).execute();
+            outboxCounter(mail, "dead").increment();
+            return;
+        }
+        Duration delay = backoff.multipliedBy(1L << Math.min(mail.getAttempts() - 1, 20));
+        if (delay.compareTo(maxBackoff) > 0) delay = maxBackoff;
+        log.warn("Mail {} ({} to {}) failed, attempt {}/{}, retry in {}: {}", mail.getId(), mail.getKind(), mail.getEmail(), mail.getAttempts(), maxAttempts, delay, error);
+        ctx.update(MAIL_OUTBOX).set(MAIL_OUTBOX.NEXT_ATTEMPT_AT, OffsetDateTime.now().plus(delay)).set(MAIL_OUTBOX.LAST_ERROR, error)
+                .where(MAIL_OUTBOX.ID.eq(mail.getId())).execute();
+        outboxCounter(mail, "retry").increment();
+    }
+
+    private Counter outboxCounter(MailOutboxRecord mail, String result) {
+        return registry.counter("mail.outbox.processed", "kind", mail.getKind(), "result", result);
+    }
+
+    private void sleepQuietly() {
+        try {
+            Thread.sleep(pollInterval.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.goomar.service;
+
+import com.goomar.tenant.TenantContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.jooq.DSLContext;
+import org.openapitools.model.ReservationRest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.UUID;
+
+import static org.jooq.generated.tables.MailOutbox.MAIL_OUTBOX;
+
+/**
+ * Writes mails to the outbox table. Must run inside the transaction that changes the reservation,
+ * so a mail exists exactly when the change committed; {@link MailDispatcher} is woken after commit.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class MailOutboxService implements IMailOutboxService {
+
+    public static final String KIND_RESERVATION = "RESERVATION";
+    public static final String KIND_CONFIRMATION = "CONFIRMATION";
+    public static final String KIND_DELETE = "DELETE";
+
+    private final DSLContext ctx;
+    private final MailDispatcher dispatcher;
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueueReservation(ReservationRest rr, UUID uuid) {
+        enqueue(KIND_RESERVATION, rr, uuid);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueueConfirmation(ReservationRest rr) {
+        enqueue(KIND_CONFIRMATION, rr, rr.getId());
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueueDelete(ReservationRest rr) {
+        enqueue(KIND_DELETE, rr, rr.getId());
+    }
+
+    private void enqueue(String kind, ReservationRest rr, UUID entryId) {
+        log.info(">>enqueue(kind={}, entryId={})", kind, entryId);
+        ctx.insertInto(MAIL_OUTBOX, MAIL_OUTBOX.TENANT_ID, MAIL_OUTBOX.KIND, MAIL_OUTBOX.ENTRY_ID, MAIL_OUTBOX.EMAIL, MAIL_OUTBOX.NAME, MAIL_OUTBOX.REGISTRATION, MAIL_OUTBOX.DATE_TIME)
+                .values(TenantContext.currentId(), kind, entryId, rr.getEmail(), rr.getName(), rr.getRegistration(), rr.getDateTime()).execute();
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                dispatcher.wakeUp();
+            }
+        });
+    }
+}
@@ -0,0 +1,8 @@
+package com.goomar.service;
+
+/** Outcome of one mail of a bulk send: the Gmail message id when sent, otherwise the last error. */
+public record MailSendResult(OutgoingMail mail, String messageId, String error) {
+    public boolean sent() {
+        return messageId != null;
+    }
+}
@@ -0,0 +1,4 @@
+package com.goomar.service;
+
+public record OutgoingMail(String to, String subject, String htmlBody) {
+}
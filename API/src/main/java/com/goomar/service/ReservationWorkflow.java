@@ -0,0 +1,121 @@
+package com.goomar.service;
+
+import com.goomar.tenant.TenantContext;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.openapitools.model.ReservationRest;
+import org.openapitools.model.UpdateReservationRest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+
+/**
+ * The reservation flows that touch both the database and Google Calendar. Each flow changes the database in one short
+ * transaction that also queues its calendar write, and the write goes to Google once that transaction has committed
+ * (see {@link CalendarWriteService}). No flow waits on Google while it holds a connection or an entries row lock;
+ * confirming checks the slot against the calendar before its transaction starts.
+ * <p>
+ * Confirmed reservation ids are remembered for a while, so repeated hits on a confirmation link (mail scanners,
+ * double clicks) are answered without a transaction. A slot blocked directly in Google (as seen by the busy index, or
+ * live for days it does not hold) or claimed by another reservation is answered as taken. Confirmation never reverts;
+ * a delete makes every replica forget the id, over the {@link InvalidationBus} once it commits.
+ * The ids are remembered per tenant, so a link never answers for another tenant's reservation.
+ */
+@Service
+@Slf4j
+public class ReservationWorkflow implements IReservationWorkflow {
+
+    private static final String CONFIRMED = "confirmed";
+
+    private final IEntryService entryService;
+    private final ICalendarService calendarService;
+    private final ICalendarWriteService calendarWrites;
+    private final IMailOutboxService mailOutbox;
+    private final TransactionTemplate transactions;
+    private final InvalidationBus bus;
+    private final LruCache<String, Boolean> confirmed;
+
+    public ReservationWorkflow(IEntryService entryService, ICalendarService calendarService, ICalendarWriteService calendarWrites, IMailOutboxService mailOutbox,
+                               TransactionTemplate transactions, InvalidationBus bus,
+                               @Value("${goomar.confirmation.cacheSize:10000}") int cacheSize,
+                               @Value("${goomar.confirmation.cacheTtl:PT1H}") Duration cacheTtl) {
+        this.entryService = entryService;
+        this.calendarService = calendarService;
+        this.calendarWrites = calendarWrites;
+        this.mailOutbox = mailOutbox;
+        this.transactions = transactions;
+        this.bus = bus;
+        this.confirmed = new LruCache<>(cacheSize, cacheTtl);
+    }
+
+    @PostConstruct
+    void init() {
+        bus.subscribe(CONFIRMED, key -> {
+            if (key == null) confirmed.clear();
+            else confirmed.remove(key);
+        });
+    }
+
+    @Override
+    public boolean isConfirmed(String id) {
+        return confirmed.get(confirmedKey(id)) != null;
+    }
+
+    @Override
+    public IEntryService.SlotClaim confirmEmail(String id) {
+        ReservationRest rr = entryService.get(id);
+        if (rr.getEmailOk()) {
+            log.info("Email already confirmed, id = {}", id);
+            confirmed.put(confirmedKey(id), true);
+            return IEntryService.SlotClaim.ALREADY_CONFIRMED;
+        }
+        if (!calendarService.slotFree(rr)) {
+            log.info("Slot of {} blocked in the calendar", id);
+            return IEntryService.SlotClaim.TAKEN;
+        }
+        IEntryService.SlotClaim claim = transactions.execute(status -> {
+            IEntryService.SlotClaim result = entryService.confirmEmailOK(id);
+            if (result == IEntryService.SlotClaim.CLAIMED) calendarWrites.insertAppointment(rr);
+            return result;
+        });
+        if (claim == IEntryService.SlotClaim.CLAIMED) confirmed.put(confirmedKey(id), true);
+        return claim;
+    }
+
+    @Override
+    @Transactional
+    public void update(UpdateReservationRest urr) {
+        if (urr.getApproved()) {
+            log.info("Regular approvement, id = {}", urr.getId());
+            ReservationRest rr = entryService.confirmReservation(urr.getId());
+            calendarWrites.confirmAppointment(rr);
+            mailOutbox.enqueueConfirmation(rr);
+            return;
+        }
+        ReservationRest rr = entryService.setEmail(urr);
+        if (urr.getSendMail()) {
+            log.info("Invalid e-mail, send new one, id = {}", urr.getId());
+            mailOutbox.enqueueReservation(rr, rr.getId());
+        } else {
+            log.info("Invalid e-mail, ignore, approve, id = {}", urr.getId());
+            calendarWrites.insertAppointment(rr);
+        }
+    }
+
+    @Override
+    @Transactional
+    public void delete(String id) {
+        ReservationRest rr = entryService.deleteReservation(id);
+        confirmed.remove(confirmedKey(id));
+        bus.publish(CONFIRMED, confirmedKey(id));
+        calendarWrites.deleteAppointment(rr);
+        mailOutbox.enqueueDelete(rr);
+    }
+
+    private static String confirmedKey(String id) {
+        return TenantContext.currentId() + ":" + id;
+    }
+}
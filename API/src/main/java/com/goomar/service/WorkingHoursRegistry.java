@@ -0,0 +1,110 @@
+package com.goomar.service;
+
+import com.goomar.availability.WorkingHours;
+import com.goomar.tenant.Tenant;
+import com.goomar.tenant.TenantContext;
+import com.goomar.tenant.TenantRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.jooq.DSLContext;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.jooq.generated.tables.Holiday.HOLIDAY;
+import static org.jooq.generated.tables.SlotRules.SLOT_RULES;
+import static org.jooq.generated.tables.WorkingHours.WORKING_HOURS;
+
+/**
+ * The compiled {@link WorkingHours} of every tenant (db/009). Reloaded periodically and whenever the rules change
+ * (announced by their triggers), without a restart; a tenant whose rules changed, or that had none loaded before,
+ * gets all its free-slot ETags invalidated. Holidays already past in the tenant's zone are dropped and do not count
+ * as a change. A tenant without working hours is closed.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class WorkingHoursRegistry {
+
+    static final String HOURS = "hours";
+
+    private final DSLContext ctx;
+    private final InvalidationBus bus;
+    private final AvailabilityVersions versions;
+    private final TenantRegistry tenants;
+
+    private volatile Map<String, WorkingHours> hours = Map.of();
+
+    @PostConstruct
+    void init() {
+        bus.subscribe(HOURS, tenant -> reload());
+        try {
+            reload();
+        } catch (DataAccessException e) {
+            log.warn("Working hours not loaded yet: {}", e.getMessage());
+        }
+    }
+
+    /** Working hours of the current tenant. */
+    public WorkingHours current() {
+        return hours.getOrDefault(TenantContext.currentId(), WorkingHours.CLOSED);
+    }
+
+    @Scheduled(fixedDelayString = "${goomar.hours.reloadInterval:PT5M}", initialDelayString = "${goomar.hours.reloadInterval:PT5M}")
+    public synchronized void reload() {
+        Map<String, List<WorkingHours.Window>> windows = new HashMap<>();
+        ctx.selectFrom(WORKING_HOURS).orderBy(WORKING_HOURS.TENANT_ID, WORKING_HOURS.WEEKDAY, WORKING_HOURS.OPENS)
+                .forEach(r -> windows.computeIfAbsent(r.getTenantId(), t -> new ArrayList<>())
+                        .add(new WorkingHours.Window(r.getWeekday(), minuteOfDay(r.getOpens()), minuteOfDay(r.getCloses()))));
+        Map<String, Set<LocalDate>> holidays = new HashMap<>();
+        // no zone is more than a day behind UTC; each tenant's own today is applied below
+        ctx.selectFrom(HOLIDAY).where(HOLIDAY.DAY.ge(LocalDate.now(ZoneOffset.UTC).minusDays(1)))
+                .forEach(r -> holidays.computeIfAbsent(r.getTenantId(), t -> new HashSet<>()).add(r.getDay()));
+        Map<String, WorkingHours.Rules> rules = new HashMap<>();
+        ctx.selectFrom(SLOT_RULES).forEach(r -> rules.put(r.getTenantId(), new WorkingHours.Rules(List.of(), Set.of(),
+                r.getShortMinutes(), r.getLongMinutes(), r.getBufferMinutes())));
+
+        Set<String> ids = new HashSet<>(windows.keySet());
+        ids.addAll(rules.keySet());
+        Map<String, WorkingHours> loaded = new HashMap<>();
+        for (String id : ids) {
+            Tenant tenant = tenants.get(id);
+            LocalDate today = LocalDate.now(tenant != null ? tenant.zone() : ZoneOffset.UTC);
+            WorkingHours.Rules slots = rules.getOrDefault(id, WorkingHours.CLOSED.rules());
+            WorkingHours compiled = WorkingHours.compile(upcoming(new WorkingHours.Rules(List.copyOf(windows.getOrDefault(id, List.of())),
+                    holidays.getOrDefault(id, Set.of()), slots.shortMinutes(), slots.longMinutes(), slots.bufferMinutes()), today));
+            loaded.put(id, compiled);
+
+            WorkingHours previous = hours.get(id);
+            if (previous == null || !upcoming(previous.rules(), today).equals(compiled.rules())) {
+                versions.changedAll(id);
+                if (previous != null) log.info("🕗 Working hours of {} changed", id);
+            }
+        }
+        hours.keySet().stream().filter(tenant -> !loaded.containsKey(tenant)).forEach(versions::changedAll);
+        hours = Collections.unmodifiableMap(loaded);
+    }
+
+    /** {@code rules} without the holidays before {@code today}. */
+    private static WorkingHours.Rules upcoming(WorkingHours.Rules rules, LocalDate today) {
+        Set<LocalDate> holidays = rules.holidays().stream().filter(day -> !day.isBefore(today)).collect(Collectors.toUnmodifiableSet());
+        return new WorkingHours.Rules(rules.windows(), holidays, rules.shortMinutes(), rules.longMinutes(), rules.bufferMinutes());
+    }
+
+    private static int minuteOfDay(LocalTime time) {
+        return time.toSecondOfDay() / 60;
+    }
+}
@@ -0,0 +1,14 @@
+package com.goomar.tenant;
+
+import java.time.ZoneId;
+
+/** A workshop served by this deployment, with its own calendar, time zone, mail sender and Google credential. */
+public record Tenant(String id, String name, String calendarId, ZoneId zone, String mailFrom, String credentialUser) {
+
+    public static final String DEFAULT = "default";
+
+    /** Path prefix of the tenant's public URLs; the default tenant is also served without one. */
+    public String pathPrefix() {
+        return DEFAULT.equals(id) ? "" : "/t/" + id;
+    }
+}
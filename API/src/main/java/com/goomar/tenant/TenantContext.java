@@ -0,0 +1,66 @@
+package com.goomar.tenant;
+
+import java.util.concurrent.Callable;
+
+/**
+ * The tenant the current thread works for. Set by {@link TenantFilter} for requests and by the background jobs per
+ * tenant they process; work handed to another thread has to take it along with {@link #wrap}.
+ */
+public final class TenantContext {
+
+    private static final ThreadLocal<Tenant> CURRENT = new ThreadLocal<>();
+
+    private TenantContext() {
+    }
+
+    public static Tenant current() {
+        Tenant tenant = CURRENT.get();
+        if (tenant == null) throw new IllegalStateException("No tenant bound to " + Thread.currentThread().getName());
+        return tenant;
+    }
+
+    /** Whether a tenant is bound; requests on the management port never get one. */
+    public static boolean bound() {
+        return CURRENT.get() != null;
+    }
+
+    public static String currentId() {
+        return current().id();
+    }
+
+    public static void run(Tenant tenant, Runnable task) {
+        Tenant previous = CURRENT.get();
+        CURRENT.set(tenant);
+        try {
+            task.run();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    public static <T> T call(Tenant tenant, Callable<T> task) throws Exception {
+        Tenant previous = CURRENT.get();
+        CURRENT.set(tenant);
+        try {
+            return task.call();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    /** {@code task} bound to the current tenant, for running on another thread. */
+    public static <T> Callable<T> wrap(Callable<T> task) {
+        Tenant tenant = current();
+        return () -> call(tenant, task);
+    }
+
+    public static Runnable wrap(Runnable task) {
+        Tenant tenant = current();
+        return () -> run(tenant, task);
+    }
+
+    private static void restore(Tenant previous) {
+        if (previous == null) CURRENT.remove();
+        else CURRENT.set(previous);
+    }
+}
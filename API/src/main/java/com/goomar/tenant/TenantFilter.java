@@ -0,0 +1,100 @@
+package com.goomar.tenant;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.goomar.advice.ErrorMessage;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.util.Date;
+
+/**
+ * Binds the request to its tenant. {@code /t/{tenant}/V1/...} is served as {@code /V1/...} for that tenant (see the
+ * {@code servers} of api.yaml); paths without the prefix belong to the default tenant. Runs ahead of the security
+ * chain, so authorization rules and the rate limiter see the path without the prefix. Unknown tenants get 404.
+ */
+@Component
+@RequiredArgsConstructor
+public class TenantFilter extends OncePerRequestFilter implements Ordered {
+
+    private static final String PREFIX = "/t/";
+
+    private final TenantRegistry tenants;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public int getOrder() {
+        return SecurityProperties.DEFAULT_FILTER_ORDER - 10;
+    }
+
+    @Override
+    @SneakyThrows
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (!path.startsWith(PREFIX)) {
+            TenantContext.call(tenants.defaultTenant(), () -> {
+                chain.doFilter(request, response);
+                return null;
+            });
+            return;
+        }
+
+        int end = path.indexOf('/', PREFIX.length());
+        String id = end < 0 ? path.substring(PREFIX.length()) : path.substring(PREFIX.length(), end);
+        Tenant tenant = tenants.get(id);
+        if (tenant == null) {
+            response.setStatus(HttpStatus.NOT_FOUND.value());
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            objectMapper.writeValue(response.getOutputStream(),
+                    new ErrorMessage(HttpStatus.NOT_FOUND.value(), new Date(), "Unknown tenant " + id, "UnknownTenant"));
+            return;
+        }
+        HttpServletRequest rewritten = new Unprefixed(request, PREFIX + id);
+        TenantContext.call(tenant, () -> {
+            chain.doFilter(rewritten, response);
+            return null;
+        });
+    }
+
+    private static final class Unprefixed extends HttpServletRequestWrapper {
+        private final String prefix;
+
+        Unprefixed(HttpServletRequest request, String prefix) {
+            super(request);
+            this.prefix = prefix;
+        }
+
+        @Override
+        public String getRequestURI() {
+            String uri = super.getRequestURI();
+            String contextPath = getContextPath();
+            String rest = uri.substring(contextPath.length() + prefix.length());
+            return contextPath + (rest.isEmpty() ? "/" : rest);
+        }
+
+        @Override
+        public String getServletPath() {
+            String servletPath = super.getServletPath();
+            if (!servletPath.startsWith(prefix)) return servletPath;
+            String rest = servletPath.substring(prefix.length());
+            return rest.isEmpty() ? "/" : rest;
+        }
+
+        @Override
+        public StringBuffer getRequestURL() {
+            StringBuffer url = super.getRequestURL();
+            int at = url.indexOf(getContextPath() + prefix, url.indexOf("//") + 2);
+            if (at >= 0) url.delete(at + getContextPath().length(), at + getContextPath().length() + prefix.length());
+            return url;
+        }
+    }
+}
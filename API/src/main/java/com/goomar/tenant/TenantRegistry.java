@@ -0,0 +1,87 @@
+package com.goomar.tenant;
+
+import com.goomar.service.InvalidationBus;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.jooq.DSLContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.jooq.generated.tables.Tenant.TENANT;
+
+/**
+ * The enabled tenants of {@code goomar.tenant}, held in memory. Reloaded periodically, on a change announced by the
+ * {@code tenant} trigger (db/008), and on a lookup of an unknown id at most every {@code missReload}. At most
+ * {@code goomar.tenants.max} tenants are served, which bounds the per-tenant caches and clients.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TenantRegistry {
+
+    private final DSLContext ctx;
+    private final InvalidationBus bus;
+    private final MeterRegistry registry;
+
+    @Value("${goomar.tenants.max:100}")
+    private int maxTenants;
+
+    @Value("${goomar.tenants.missReload:PT10S}")
+    private Duration missReload;
+
+    private volatile Map<String, Tenant> tenants = Map.of();
+    private volatile long lastReload;
+
+    @PostConstruct
+    void init() {
+        bus.subscribe("tenant", id -> reload());
+        Gauge.builder("tenants", () -> tenants.size()).description("Tenants served").register(registry);
+        try {
+            reload();
+        } catch (DataAccessException e) {
+            log.warn("Tenants not loaded yet: {}", e.getMessage());
+        }
+    }
+
+    /** The enabled tenant {@code id}, or {@code null}. */
+    public Tenant get(String id) {
+        Tenant tenant = tenants.get(id);
+        if (tenant == null && System.nanoTime() - lastReload > missReload.toNanos()) {
+            reload();
+            tenant = tenants.get(id);
+        }
+        return tenant;
+    }
+
+    public Tenant defaultTenant() {
+        Tenant tenant = get(Tenant.DEFAULT);
+        if (tenant == null) throw new IllegalStateException("Default tenant missing in goomar.tenant");
+        return tenant;
+    }
+
+    public Collection<Tenant> all() {
+        return tenants.values();
+    }
+
+    @Scheduled(fixedDelayString = "${goomar.tenants.reloadInterval:PT5M}", initialDelayString = "${goomar.tenants.reloadInterval:PT5M}")
+    public synchronized void reload() {
+        lastReload = System.nanoTime();
+        Map<String, Tenant> loaded = new LinkedHashMap<>();
+        ctx.selectFrom(TENANT).where(TENANT.ENABLED.isTrue()).orderBy(TENANT.ID).limit(maxTenants).forEach(r -> loaded.put(r.getId(),
+                new Tenant(r.getId(), r.getName(), r.getCalendarId(), ZoneId.of(r.getZone()), r.getMailFrom(), r.getCredentialUser())));
+        if (!loaded.keySet().equals(tenants.keySet())) log.info("🏢 Serving {} tenant(s): {}", loaded.size(), loaded.keySet());
+        tenants = Collections.unmodifiableMap(loaded);
+    }
+}
@@ -0,0 +1,53 @@
+package com.goomar.availability;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BusyIntervalsTest {
+
+    @Test
+    void mergesOverlappingAndAdjacentInAnyOrder() {
+        BusyIntervals busy = new BusyIntervals(2)
+                .add(50, 60)
+                .add(10, 20)
+                .add(15, 30)
+                .add(30, 35)
+                .add(70, 80)
+                .add(72, 75);
+
+        assertThat(intervals(busy.merge())).containsExactly("10-35", "50-60", "70-80");
+    }
+
+    @Test
+    void ignoresEmptyIntervals() {
+        BusyIntervals busy = new BusyIntervals().add(10, 10).add(20, 15);
+
+        assertThat(busy.size()).isZero();
+    }
+
+    @Test
+    void millisAreWidenedToWholeMinutes() {
+        BusyIntervals busy = new BusyIntervals().addMillis(60_000L * 5 + 1, 60_000L * 9 + 1);
+
+        assertThat(intervals(busy)).containsExactly("5-10");
+    }
+
+    @Test
+    void clearStartsOver() {
+        BusyIntervals busy = new BusyIntervals().add(1, 2).add(5, 6);
+        busy.clear();
+        busy.add(3, 4);
+
+        assertThat(intervals(busy.merge())).containsExactly("3-4");
+    }
+
+    private static List<String> intervals(BusyIntervals busy) {
+        List<String> result = new ArrayList<>();
+        for (int i = 0; i < busy.size(); i++) result.add(busy.start(i) + "-" + busy.end(i));
+        return result;
+    }
+}
@@ -0,0 +1,76 @@
+package com.goomar.availability;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DayBitmapTest {
+
+    @Test
+    void busyRangeAcrossWordBoundary() {
+        DayBitmap bitmap = new DayBitmap(1000, 200);
+        bitmap.markBusy(1063, 1065);
+
+        assertThat(bitmap.isFree(62, 63)).isTrue();
+        assertThat(bitmap.isFree(63, 64)).isFalse();
+        assertThat(bitmap.isFree(64, 65)).isFalse();
+        assertThat(bitmap.isFree(65, 66)).isTrue();
+        assertThat(bitmap.isFree(0, 63)).isTrue();
+        assertThat(bitmap.isFree(65, 200)).isTrue();
+        assertThat(bitmap.isFree(0, 64)).isFalse();
+    }
+
+    @Test
+    void lastMinuteOfWordAndFirstOfNext() {
+        DayBitmap lastBit = new DayBitmap(0, 128);
+        lastBit.markBusy(63, 64);
+        assertThat(lastBit.isFree(0, 63)).isTrue();
+        assertThat(lastBit.isFree(64, 128)).isTrue();
+        assertThat(lastBit.isFree(60, 70)).isFalse();
+
+        DayBitmap firstBit = new DayBitmap(0, 128);
+        firstBit.markBusy(64, 65);
+        assertThat(firstBit.isFree(0, 64)).isTrue();
+        assertThat(firstBit.isFree(65, 128)).isTrue();
+        assertThat(firstBit.isFree(64, 65)).isFalse();
+    }
+
+    @Test
+    void rangeSpanningWholeWords() {
+        DayBitmap bitmap = new DayBitmap(0, 300);
+        bitmap.markBusy(10, 250);
+
+        assertThat(bitmap.isFree(0, 10)).isTrue();
+        assertThat(bitmap.isFree(128, 192)).isFalse();
+        assertThat(bitmap.isFree(250, 300)).isTrue();
+        assertThat(bitmap.isFree(249, 250)).isFalse();
+    }
+
+    @Test
+    void busyOutsideTheWindowIsClipped() {
+        DayBitmap bitmap = new DayBitmap(1000, 60);
+        bitmap.markBusy(900, 1005);
+        bitmap.markBusy(1055, 2000);
+        bitmap.markBusy(0, 10);
+
+        int[] out = new int[4];
+        int count = bitmap.freeSlots(15, out);
+        assertThat(Arrays.copyOf(out, count)).containsExactly(15, 30);
+    }
+
+    @Test
+    void touchMarginBlocksAdjacentSlots() {
+        BusyIntervals busy = new BusyIntervals().add(30, 45);
+
+        DayBitmap exact = new DayBitmap(0, 90);
+        exact.markBusy(busy, 0);
+        int[] out = new int[6];
+        assertThat(Arrays.copyOf(out, exact.freeSlots(15, out))).containsExactly(0, 15, 45, 60, 75);
+
+        DayBitmap touching = new DayBitmap(0, 90);
+        touching.markBusy(busy, WorkingHours.TOUCH_MARGIN);
+        assertThat(Arrays.copyOf(out, touching.freeSlots(15, out))).containsExactly(0, 60, 75);
+    }
+}
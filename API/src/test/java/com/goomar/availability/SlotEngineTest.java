@@ -0,0 +1,141 @@
+package com.goomar.availability;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SlotEngineTest {
+
+    private static final ZoneId ZONE = ZoneId.of("Europe/Zagreb");
+
+    /** The hours CalendarService had hardcoded: 08:00 - 16:00 every day, break 12:00 - 13:00; slots touching the break are taken. */
+    private static final WorkingHours CLASSIC = WorkingHours.compile(new WorkingHours.Rules(classicWindows(), Set.of(), 15, 30, 0));
+
+    @Test
+    void matchesLegacyLoopOnRandomCalendars() {
+        Random random = new Random(42);
+        LocalDate first = LocalDate.of(2025, 1, 6);
+        for (int d = 0; d < 300; d++) {
+            LocalDate date = first.plusDays(d);
+            long open = date.atTime(8, 0).atZone(ZONE).toInstant().toEpochMilli();
+            int events = random.nextInt(25);
+            long[] starts = new long[events];
+            long[] ends = new long[events];
+            for (int e = 0; e < events; e++) {
+                // whole minutes, as Calendar events are; the legacy loop compared milliseconds
+                starts[e] = open + (random.nextInt(9 * 60) - 30) * 60_000L;
+                ends[e] = starts[e] + (5 + random.nextInt(60)) * 60_000L;
+            }
+            for (boolean longService : new boolean[]{false, true}) {
+                assertThat(engine(date, starts, ends, longService)).as("%s long=%s", date, longService)
+                        .isEqualTo(legacy(date, starts, ends, longService));
+            }
+        }
+    }
+
+    @Test
+    void bufferKeepsDistanceToBusyPeriods() {
+        WorkingHours buffered = WorkingHours.compile(new WorkingHours.Rules(classicWindows(), Set.of(), 15, 30, 10));
+        LocalDate date = LocalDate.of(2025, 6, 2);
+        long midnight = midnight(date);
+        BusyIntervals busy = new BusyIntervals().add(midnight + 9 * 60, midnight + 9 * 60 + 30);
+
+        assertThat(free(buffered, date, false, busy)).containsExactly(
+                "08:00", "08:15", "08:30", "09:45", "10:00", "10:15", "10:30", "10:45", "11:00", "11:15", "11:30",
+                "13:15", "13:30", "13:45", "14:00", "14:15", "14:30", "14:45", "15:00", "15:15", "15:30", "15:45");
+    }
+
+    @Test
+    void holidaysAndClosedWeekdaysOfferNothing() {
+        LocalDate holiday = LocalDate.of(2025, 12, 25);
+        List<WorkingHours.Window> weekdays = classicWindows().stream().filter(w -> w.weekday() <= 5).toList();
+        WorkingHours hours = WorkingHours.compile(new WorkingHours.Rules(weekdays, Set.of(holiday), 15, 30, 0));
+
+        assertThat(hours.day(holiday, false).isClosed()).isTrue();
+        assertThat(hours.day(LocalDate.of(2025, 12, 27), false).isClosed()).isTrue();
+        assertThat(free(hours, LocalDate.of(2025, 12, 26), false, new BusyIntervals())).hasSize(26);
+    }
+
+    @Test
+    void localTimesSkippedByDstAreNotOffered() {
+        WorkingHours night = WorkingHours.compile(new WorkingHours.Rules(List.of(new WorkingHours.Window(7, 60, 240)), Set.of(), 30, 60, 0));
+
+        assertThat(free(night, LocalDate.of(2026, 3, 29), false, new BusyIntervals())).containsExactly("01:00", "03:00", "03:30");
+    }
+
+    private static List<String> engine(LocalDate date, long[] starts, long[] ends, boolean longService) {
+        BusyIntervals busy = new BusyIntervals();
+        for (int e = 0; e < starts.length; e++) busy.addMillis(starts[e], ends[e]);
+        DayTemplate day = CLASSIC.day(date, longService);
+        List<String> slots = new ArrayList<>();
+        for (String start : free(CLASSIC, date, longService, busy)) {
+            int minute = Integer.parseInt(start.substring(0, 2)) * 60 + Integer.parseInt(start.substring(3));
+            slots.add(start + "-" + SlotEngine.label(minute + day.slotLength()));
+        }
+        return slots;
+    }
+
+    /** The slot loop of CalendarService before SlotEngine; busy periods and slots are closed ranges, so touching blocks. */
+    private static List<String> legacy(LocalDate date, long[] starts, long[] ends, boolean longService) {
+        List<long[]> busy = new ArrayList<>();
+        for (int e = 0; e < starts.length; e++) busy.add(new long[]{starts[e], ends[e]});
+        busy.add(new long[]{date.atTime(12, 0).atZone(ZONE).toInstant().toEpochMilli(), date.atTime(13, 0).atZone(ZONE).toInstant().toEpochMilli()});
+
+        List<String> slots = new ArrayList<>();
+        ZonedDateTime cursor = date.atTime(8, 0).atZone(ZONE);
+        ZonedDateTime close = date.atTime(16, 0).atZone(ZONE);
+        int length = longService ? 30 : 15;
+        while (!cursor.plusMinutes(length).isAfter(close)) {
+            long slotStart = cursor.toInstant().toEpochMilli();
+            long slotEnd = cursor.plusMinutes(length).toInstant().toEpochMilli();
+            boolean free = busy.stream().noneMatch(b -> slotEnd >= b[0] && slotStart <= b[1]);
+            if (free) slots.add(cursor.toLocalTime() + "-" + cursor.plusMinutes(length).toLocalTime());
+            cursor = cursor.plusMinutes(length);
+        }
+        return slots;
+    }
+
+    private static List<String> free(WorkingHours hours, LocalDate date, boolean longService, BusyIntervals busy) {
+        DayTemplate day = hours.day(date, longService);
+        int[] out = new int[day.size()];
+        int count = SlotEngine.freeSlots(day, clock(date), hours.margin(), busy, out);
+        return labels(out, count);
+    }
+
+    private static List<String> labels(int[] starts, int count) {
+        return Arrays.stream(starts, 0, count).mapToObj(SlotEngine::label).toList();
+    }
+
+    /** Minute by minute, so days with a DST switch are covered too. */
+    private static DayClock clock(LocalDate date) {
+        return minute -> {
+            LocalDateTime local = date.atStartOfDay().plusMinutes(minute);
+            List<ZoneOffset> offsets = ZONE.getRules().getValidOffsets(local);
+            return offsets.isEmpty() ? DayClock.SKIPPED : local.toEpochSecond(offsets.get(0)) / 60;
+        };
+    }
+
+    private static long midnight(LocalDate date) {
+        return date.atStartOfDay(ZONE).toEpochSecond() / 60;
+    }
+
+    private static List<WorkingHours.Window> classicWindows() {
+        List<WorkingHours.Window> windows = new ArrayList<>();
+        for (int weekday = 1; weekday <= 7; weekday++) {
+            windows.add(new WorkingHours.Window(weekday, 8 * 60, 12 * 60));
+            windows.add(new WorkingHours.Window(weekday, 13 * 60, 16 * 60));
+        }
+        return windows;
+    }
+}